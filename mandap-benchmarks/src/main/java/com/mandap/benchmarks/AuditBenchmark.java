@@ -0,0 +1,73 @@
+package com.mandap.benchmarks;
+
+import com.mandap.dto.CustomerAuditDTO;
+import com.mandap.dto.PageDTO;
+import com.mandap.dto.RentalOrderAuditDTO;
+import com.mandap.dto.RentalOrderDTO;
+import com.mandap.dto.RentalOrderItemDTO;
+import com.mandap.service.CustomerService;
+import com.mandap.service.RentalOrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit history pages for a busy booking (edited {@code revisions} times in
+ * setup) and for its customer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AuditBenchmark {
+
+    @Param("200")
+    public int revisions;
+
+    private RentalOrderService rentalOrderService;
+    private CustomerService customerService;
+
+    private Long orderId;
+    private Long customerId;
+    private int deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        rentalOrderService = context.bean(RentalOrderService.class);
+        customerService = context.bean(CustomerService.class);
+        if (context.bookedOrderIds().size() < 2) {
+            throw new IllegalStateException("Season has fewer than two booked orders; raise orders");
+        }
+
+        // Not the order RentalOrderBenchmark edits
+        RentalOrderDTO order = rentalOrderService.getOrderById(context.bookedOrderIds().get(1));
+        for (int i = 0; i < revisions; i++) {
+            int sign = (i % 2 == 0) ? 1 : -1;
+            for (RentalOrderItemDTO item : order.getItems()) {
+                item.setBookedQty(item.getBookedQty() + sign);
+            }
+            order.setRemarks("Revision " + i);
+            order = rentalOrderService.updateOrder(order.getId(), order);
+        }
+        orderId = order.getId();
+        customerId = order.getCustomerId();
+        deepPage = Math.max(revisions / 20 - 1, 0);
+    }
+
+    @Benchmark
+    public PageDTO<RentalOrderAuditDTO> orderAuditFirstPage() {
+        return rentalOrderService.getRentalOrderAuditHistory(orderId, 0, 20, false, false);
+    }
+
+    @Benchmark
+    public PageDTO<RentalOrderAuditDTO> orderAuditDeepPage() {
+        return rentalOrderService.getRentalOrderAuditHistory(orderId, deepPage, 20, false, false);
+    }
+
+    @Benchmark
+    public PageDTO<CustomerAuditDTO> customerAuditPage() {
+        return customerService.getCustomerAuditHistory(customerId, 0, 20, false);
+    }
+}
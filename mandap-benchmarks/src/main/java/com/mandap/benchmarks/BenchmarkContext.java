@@ -0,0 +1,137 @@
+package com.mandap.benchmarks;
+
+import com.mandap.MandapApplication;
+import com.mandap.service.AtpLedger;
+import com.mandap.service.SyntheticSeasonGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application once per fork against an in-memory H2 database and
+ * seeds a synthetic season with {@link SyntheticSeasonGenerator}. Season size is set with JMH params, e.g.
+ * {@code -p customers=5000 -p orders=20000 -p items=80}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    @Param("1000")
+    public int customers;
+
+    @Param("3000")
+    public int orders;
+
+    @Param("60")
+    public int items;
+
+    @Param("42")
+    public long seed;
+
+    private ConfigurableApplicationContext context;
+
+    private List<Long> itemIds;
+
+    private List<Long> bookedOrderIds;
+
+    private List<Long> billIds;
+
+    private List<Long> orderFreeCustomerIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE,USER;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.flyway.enabled", "false");
+        properties.put("spring.sql.init.mode", "never");
+        properties.put("logging.level.root", "WARN");
+
+        // Passed as command-line arguments so they override application.properties
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        context = new SpringApplicationBuilder(MandapApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+
+        // Hibernate creates the tables but not the migration's query indexes,
+        // and keys audit tables by (rev, id) where the migrations use (id, rev)
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V14__add_query_indexes.sql"))
+                .execute(bean(DataSource.class));
+        JdbcTemplate jdbc = bean(JdbcTemplate.class);
+        for (String table : List.of("customers_aud", "inventory_items_aud", "rental_orders_aud",
+                "rental_order_items_aud")) {
+            jdbc.execute("CREATE INDEX idx_" + table + "_id_rev ON " + table + " (id, rev)");
+        }
+
+        bean(SyntheticSeasonGenerator.class).generate(seed, customers, orders, items);
+
+        itemIds = jdbc.queryForList("SELECT id FROM inventory_items ORDER BY id", Long.class);
+        bookedOrderIds = jdbc.queryForList("SELECT id FROM rental_orders WHERE status = 'BOOKED' ORDER BY id",
+                Long.class);
+        billIds = jdbc.queryForList("SELECT id FROM bills ORDER BY id", Long.class);
+        orderFreeCustomerIds = jdbc.queryForList("SELECT c.id FROM customers c WHERE NOT EXISTS "
+                + "(SELECT 1 FROM rental_orders ro WHERE ro.customer_id = c.id) ORDER BY c.id", Long.class);
+
+        // Ledger was built at startup from an empty database
+        bean(AtpLedger.class).rebuild();
+
+        // Envers revision listener records the acting user; JMH runs the
+        // benchmark methods on worker threads, so share one context
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "benchmark", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        SecurityContextHolder.clearContext();
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public List<Long> itemIds() {
+        return itemIds;
+    }
+
+    /** Orders still in BOOKED status (safe to edit). */
+    public List<Long> bookedOrderIds() {
+        return bookedOrderIds;
+    }
+
+    public List<Long> billIds() {
+        return billIds;
+    }
+
+    /** Customers without any order (accepted by createBooking). */
+    public List<Long> orderFreeCustomerIds() {
+        return orderFreeCustomerIds;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mandap.benchmarks;
+
+import com.mandap.dto.BillDTO;
+import com.mandap.dto.BillSummaryDTO;
+import com.mandap.entity.Bill;
+import com.mandap.entity.BillItem;
+import com.mandap.entity.Payment;
+import com.mandap.service.BillService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bill list (summary projection), bill detail (full DTO mapping) and the
+ * in-memory total calculation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BillBenchmark {
+
+    private BillService billService;
+    private List<Long> billIds;
+    private Bill bill;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        billService = context.bean(BillService.class);
+        billIds = context.billIds();
+
+        bill = Bill.builder().billNumber("BENCH").billDate(LocalDate.now()).build();
+        for (int i = 0; i < 40; i++) {
+            bill.addItem(BillItem.builder()
+                    .quantity(i + 1)
+                    .rate(BigDecimal.valueOf(25))
+                    .total(BigDecimal.valueOf(25L * (i + 1)))
+                    .build());
+        }
+        for (int i = 0; i < 3; i++) {
+            bill.addPayment(Payment.builder().amount(BigDecimal.valueOf(1000)).build());
+        }
+    }
+
+    @Benchmark
+    public List<BillSummaryDTO> getAllBills() {
+        return billService.getAllBills();
+    }
+
+    @Benchmark
+    public BillDTO getBillById() {
+        return billService.getBillById(billIds.get(invocation++ % billIds.size()));
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotals() {
+        bill.calculateTotals();
+        return bill.getNetPayable();
+    }
+}
@@ -0,0 +1,37 @@
+package com.mandap.benchmarks;
+
+import com.mandap.dto.CustomerDTO;
+import com.mandap.service.CustomerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer list and search, including the order/bill flag lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerBenchmark {
+
+    private CustomerService customerService;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        customerService = context.bean(CustomerService.class);
+    }
+
+    @Benchmark
+    public List<CustomerDTO> getAllCustomers() {
+        return customerService.getAllCustomers();
+    }
+
+    @Benchmark
+    public List<CustomerDTO> searchCustomers() {
+        return customerService.searchCustomers("Patel");
+    }
+}
@@ -0,0 +1,32 @@
+package com.mandap.benchmarks;
+
+import com.mandap.dto.InventoryItemDTO;
+import com.mandap.service.InventoryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inventory list with booked/dispatched/returned totals per item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InventoryBenchmark {
+
+    private InventoryService inventoryService;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        inventoryService = context.bean(InventoryService.class);
+    }
+
+    @Benchmark
+    public List<InventoryItemDTO> getAllItems() {
+        return inventoryService.getAllItems();
+    }
+}
@@ -0,0 +1,92 @@
+package com.mandap.benchmarks;
+
+import com.mandap.security.AuthorityVersionRegistry;
+import com.mandap.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT sign and verify throughput. Only the token provider is started, no
+ * database. verifyRebuildingParser builds the key and parser per call, as
+ * the provider used to, for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "BenchmarkSecretKeyForJwtSigningAndVerification2026";
+
+    @Param({ "false", "true" })
+    public boolean embedAuthorities;
+
+    private AnnotationConfigApplicationContext context;
+
+    private JwtTokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("app.jwt.secret", SECRET);
+        properties.put("app.jwt.expiration-ms", "86400000");
+        properties.put("app.jwt.key-id", "current");
+        properties.put("app.jwt.previous-keys", "old:" + SECRET.replace("2026", "2025"));
+        properties.put("app.jwt.embed-authorities", String.valueOf(embedAuthorities));
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(JwtTokenProvider.class, AuthorityVersionRegistry.class);
+        context.refresh();
+        tokenProvider = context.getBean(JwtTokenProvider.class);
+
+        User user = new User("admin1", "", AuthorityUtils.createAuthorityList("ROLE_ADMIN", "BILL_CREATE",
+                "BILL_DELETE", "BILL_EDIT", "BILL_READ", "CUSTOMER_READ", "CUSTOMER_WRITE", "INVENTORY_READ",
+                "INVENTORY_WRITE", "USER_MANAGE"));
+        authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        token = tokenProvider.generateToken(authentication);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return tokenProvider.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifyRebuildingParser() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
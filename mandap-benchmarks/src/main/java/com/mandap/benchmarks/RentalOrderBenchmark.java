@@ -0,0 +1,125 @@
+package com.mandap.benchmarks;
+
+import com.mandap.dto.BulkVoucherDTO;
+import com.mandap.dto.BulkVoucherResultDTO;
+import com.mandap.dto.RentalOrderDTO;
+import com.mandap.dto.RentalOrderItemDTO;
+import com.mandap.dto.RentalOrderTransactionDTO;
+import com.mandap.service.RentalOrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking create and edit, dominated by the ATP (available-to-promise) stock
+ * check, and one truck's dispatch voucher over many orders, per order or in
+ * bulk. New bookings and dispatches run in a rolled-back transaction so the
+ * season stays the same across iterations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RentalOrderBenchmark {
+
+    private RentalOrderService rentalOrderService;
+    private TransactionTemplate transactionTemplate;
+
+    private List<Long> customerIds;
+    private List<Long> itemIds;
+    private RentalOrderDTO editableOrder;
+    private List<RentalOrderTransactionDTO> truckLoad;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        rentalOrderService = context.bean(RentalOrderService.class);
+        transactionTemplate = new TransactionTemplate(context.bean(PlatformTransactionManager.class));
+        customerIds = context.orderFreeCustomerIds();
+        itemIds = context.itemIds();
+        if (customerIds.isEmpty() || context.bookedOrderIds().isEmpty()) {
+            throw new IllegalStateException("Season has no order-free customers or booked orders; raise customers");
+        }
+        editableOrder = rentalOrderService.getOrderById(context.bookedOrderIds().get(0));
+
+        // One unit of every line of up to 20 booked orders
+        truckLoad = new ArrayList<>();
+        for (Long orderId : context.bookedOrderIds().subList(1, Math.min(21, context.bookedOrderIds().size()))) {
+            List<RentalOrderItemDTO> lines = new ArrayList<>();
+            for (RentalOrderItemDTO item : rentalOrderService.getOrderById(orderId).getItems()) {
+                lines.add(RentalOrderItemDTO.builder()
+                        .inventoryItemId(item.getInventoryItemId())
+                        .dispatchedQty(1)
+                        .build());
+            }
+            truckLoad.add(RentalOrderTransactionDTO.builder().rentalOrderId(orderId).items(lines).build());
+        }
+    }
+
+    @Benchmark
+    public RentalOrderDTO createBooking() {
+        int n = invocation++;
+        RentalOrderDTO dto = RentalOrderDTO.builder()
+                .customerId(customerIds.get(n % customerIds.size()))
+                .orderDate(LocalDate.now())
+                .items(bookingLines(n))
+                .build();
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return rentalOrderService.createBooking(dto);
+        });
+    }
+
+    @Benchmark
+    public RentalOrderDTO updateOrder() {
+        // Alternate each line's quantity by one so every call changes stock
+        int sign = (invocation++ % 2 == 0) ? 1 : -1;
+        for (RentalOrderItemDTO item : editableOrder.getItems()) {
+            item.setBookedQty(item.getBookedQty() + sign);
+        }
+        return rentalOrderService.updateOrder(editableOrder.getId(), editableOrder);
+    }
+
+    @Benchmark
+    public List<RentalOrderDTO> dispatchPerOrder() {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            List<RentalOrderDTO> results = new ArrayList<>();
+            for (RentalOrderTransactionDTO order : truckLoad) {
+                results.add(rentalOrderService.dispatchItems(order.getRentalOrderId(), order));
+            }
+            return results;
+        });
+    }
+
+    @Benchmark
+    public List<BulkVoucherResultDTO> dispatchBulk() {
+        BulkVoucherDTO dto = BulkVoucherDTO.builder()
+                .type("DISPATCH")
+                .voucherNumber("TRUCK-1")
+                .orders(truckLoad)
+                .build();
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return rentalOrderService.applyBulkVoucher(dto);
+        });
+    }
+
+    private List<RentalOrderItemDTO> bookingLines(int n) {
+        List<RentalOrderItemDTO> lines = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            lines.add(RentalOrderItemDTO.builder()
+                    .inventoryItemId(itemIds.get((n + i * 7) % itemIds.size()))
+                    .bookedQty(5)
+                    .build());
+        }
+        return lines;
+    }
+}
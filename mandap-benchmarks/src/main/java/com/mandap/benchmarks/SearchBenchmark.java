@@ -0,0 +1,86 @@
+package com.mandap.benchmarks;
+
+import com.mandap.dto.CustomerSuggestionDTO;
+import com.mandap.entity.Customer;
+import com.mandap.entity.InventoryItem;
+import com.mandap.repository.BillRepository;
+import com.mandap.repository.CustomerRepository;
+import com.mandap.repository.InventoryItemRepository;
+import com.mandap.service.CustomerSuggestions;
+import com.mandap.service.SearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search box lookups: matching ids from the in-memory search index against
+ * the LIKE queries it replaces, and customer type-ahead suggestions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    private SearchIndex searchIndex;
+
+    private CustomerSuggestions customerSuggestions;
+
+    private CustomerRepository customerRepository;
+
+    private BillRepository billRepository;
+
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        searchIndex = context.bean(SearchIndex.class);
+        customerSuggestions = context.bean(CustomerSuggestions.class);
+        customerRepository = context.bean(CustomerRepository.class);
+        billRepository = context.bean(BillRepository.class);
+        inventoryItemRepository = context.bean(InventoryItemRepository.class);
+    }
+
+    @Benchmark
+    public List<Long> indexCustomers() {
+        return searchIndex.searchCustomers("Patel");
+    }
+
+    @Benchmark
+    public List<Customer> likeCustomers() {
+        return customerRepository.searchByNameOrMobile("Patel");
+    }
+
+    @Benchmark
+    public List<Long> indexBills() {
+        return searchIndex.searchBills("-0042");
+    }
+
+    @Benchmark
+    public List<BillRepository.BillHeaderView> likeBills() {
+        return billRepository.searchHeaders("-0042");
+    }
+
+    @Benchmark
+    public List<Long> indexItems() {
+        return searchIndex.searchInventoryItems("Item 4");
+    }
+
+    @Benchmark
+    public List<InventoryItem> likeItems() {
+        return inventoryItemRepository.searchByName("Item 4");
+    }
+
+    @Benchmark
+    public List<CustomerSuggestionDTO> suggestByMobile() {
+        return customerSuggestions.suggest("90000001", 10);
+    }
+
+    @Benchmark
+    public List<CustomerSuggestionDTO> suggestByName() {
+        return customerSuggestions.suggest("pat", 10);
+    }
+}
@@ -40,6 +40,31 @@ export interface Bill {
     orderItemQuantities?: { [itemId: number]: number }; // itemId -> order bookedQty
 }
 
+// Lightweight list row; use Bill (getById) for items and payments
+export interface BillSummary {
+    id: number;
+    billNumber: string;
+    customerId: number;
+    customerName?: string;
+    customerMobile?: string;
+    palNumbers: string;
+    billType: BillType;
+    paymentStatus: PaymentStatus;
+    totalAmount: number;
+    deposit: number;
+    settlementDiscount: number;
+    netPayable: number;
+    toBeReturned: number;
+    billDate: string;
+    createdAt?: string;
+    rentalOrderId?: number;
+    itemCount: number;
+    lostItemCount: number;
+    lineTotal: number;
+    paymentCount: number;
+    paymentTotal: number;
+}
+
 export interface BillRequest {
     customerId: number;
     billDate: string;
@@ -5,3 +5,4 @@ export * from './inventory.model';
 export * from './user.model';
 export * from './rental-order.model';
 export * from './payment.model';
+export * from './page.model';
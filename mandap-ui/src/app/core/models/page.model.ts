@@ -0,0 +1,7 @@
+export interface PageResult<T> {
+    items: T[];
+    page: number; // zero-based
+    size: number;
+    totalElements: number;
+    hasMore: boolean;
+}
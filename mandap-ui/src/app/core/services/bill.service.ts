@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Bill, BillRequest, BillUpdateRequest } from '../models';
+import { Bill, BillRequest, BillSummary, BillUpdateRequest } from '../models';
 
 @Injectable({
     providedIn: 'root'
@@ -11,8 +11,8 @@ export class BillService {
 
     constructor(private http: HttpClient) { }
 
-    getAll(): Observable<Bill[]> {
-        return this.http.get<Bill[]>(this.API_URL);
+    getAll(): Observable<BillSummary[]> {
+        return this.http.get<BillSummary[]>(this.API_URL);
     }
 
     getById(id: number): Observable<Bill> {
@@ -23,18 +23,18 @@ export class BillService {
         return this.http.get<Bill>(`${this.API_URL}/number/${billNumber}`);
     }
 
-    getByCustomer(customerId: number): Observable<Bill[]> {
-        return this.http.get<Bill[]>(`${this.API_URL}/customer/${customerId}`);
+    getByCustomer(customerId: number): Observable<BillSummary[]> {
+        return this.http.get<BillSummary[]>(`${this.API_URL}/customer/${customerId}`);
     }
 
 
 
-    getByYear(year: number): Observable<Bill[]> {
-        return this.http.get<Bill[]>(`${this.API_URL}/year/${year}`);
+    getByYear(year: number): Observable<BillSummary[]> {
+        return this.http.get<BillSummary[]>(`${this.API_URL}/year/${year}`);
     }
 
-    search(query: string): Observable<Bill[]> {
-        return this.http.get<Bill[]>(`${this.API_URL}/search`, {
+    search(query: string): Observable<BillSummary[]> {
+        return this.http.get<BillSummary[]>(`${this.API_URL}/search`, {
             params: { query }
         });
     }
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Customer, CustomerRequest } from '../models';
+import { Customer, CustomerRequest, PageResult } from '../models';
 
 @Injectable({
     providedIn: 'root'
@@ -37,7 +37,7 @@ export class CustomerService {
         return this.http.delete<void>(`${this.API_URL}/${id}`);
     }
 
-    getAuditHistory(id: number): Observable<any[]> {
-        return this.http.get<any[]>(`${this.API_URL}/${id}/audit`);
+    getAuditHistory(id: number, page = 0): Observable<PageResult<any>> {
+        return this.http.get<PageResult<any>>(`${this.API_URL}/${id}/audit`, { params: { page } });
     }
 }
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { InventoryItem, InventoryUpdateRequest } from '../models';
+import { InventoryItem, InventoryUpdateRequest, PageResult } from '../models';
 
 @Injectable({
     providedIn: 'root'
@@ -39,8 +39,8 @@ export class InventoryService {
         return this.http.get<ItemUsage[]>(`${this.API_URL}/${id}/usage`);
     }
 
-    getAuditHistory(id: number): Observable<any[]> {
-        return this.http.get<any[]>(`${this.API_URL}/${id}/audit`);
+    getAuditHistory(id: number, page = 0): Observable<PageResult<any>> {
+        return this.http.get<PageResult<any>>(`${this.API_URL}/${id}/audit`, { params: { page } });
     }
 }
 
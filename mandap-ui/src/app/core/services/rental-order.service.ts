@@ -2,6 +2,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { RentalOrder, RentalOrderItem, RentalOrderTransaction } from '../models/rental-order.model';
+import { PageResult } from '../models/page.model';
 
 @Injectable({
     providedIn: 'root'
@@ -55,7 +56,7 @@ export class RentalOrderService {
         return this.http.delete<void>(`${this.API_URL}/${id}`);
     }
 
-    getAuditHistory(id: number): Observable<any[]> {
-        return this.http.get<any[]>(`${this.API_URL}/${id}/audit`);
+    getAuditHistory(id: number, page = 0): Observable<PageResult<any>> {
+        return this.http.get<PageResult<any>>(`${this.API_URL}/${id}/audit`, { params: { page } });
     }
 }
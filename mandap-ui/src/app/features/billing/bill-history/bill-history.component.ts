@@ -3,7 +3,7 @@ import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { Router, ActivatedRoute } from '@angular/router';
 import { BillService, ToastService } from '@core/services';
-import { Bill, BillType, PaymentStatus, BillUpdateRequest } from '@core/models';
+import { Bill, BillSummary, BillType, PaymentStatus, BillUpdateRequest } from '@core/models';
 import { CurrencyInrPipe, DateFormatPipe, StatusBadgeComponent, LoadingSpinnerComponent, ModalComponent } from '@shared';
 import { PaymentHistoryModalComponent } from '../payment-history-modal/payment-history-modal.component';
 
@@ -374,12 +374,12 @@ export class BillHistoryComponent implements OnInit {
   private router = inject(Router);
   private route = inject(ActivatedRoute);
 
-  bills = signal<Bill[]>([]);
+  bills = signal<BillSummary[]>([]);
   selectedBill = signal<Bill | null>(null);
   isLoading = signal(true);
   isSaving = signal(false);
   showPaymentModal = signal(false);
-  selectedBillForPayment = signal<Bill | null>(null);
+  selectedBillForPayment = signal<BillSummary | null>(null);
 
   // Filters
   billNoFilter = signal('');
@@ -481,24 +481,30 @@ export class BillHistoryComponent implements OnInit {
     this.loadData();
   }
 
-  viewBill(bill: Bill): void {
-    this.selectedBill.set(bill);
-    this.viewModal.open();
+  viewBill(bill: BillSummary): void {
+    // List rows are summaries; load items and payments for the detail view
+    this.billService.getById(bill.id).subscribe({
+      next: (fullBill) => {
+        this.selectedBill.set(fullBill);
+        this.viewModal.open();
+      },
+      error: () => this.toastService.error('Failed to load bill')
+    });
   }
 
-  hasLostItems(bill: Bill): boolean {
-    return bill.items.some(i => i.isLostItem);
+  hasLostItems(bill: BillSummary): boolean {
+    return bill.lostItemCount > 0;
   }
 
-  hasPayments(bill: Bill): boolean {
-    return (bill.payments?.some(p => (p.amount || 0) > 0)) || (bill.deposit > 0);
+  hasPayments(bill: BillSummary): boolean {
+    return (bill.paymentTotal || 0) > 0 || (bill.deposit > 0);
   }
 
-  editBill(bill: Bill): void {
+  editBill(bill: BillSummary): void {
     this.router.navigate(['/billing/edit', bill.id]);
   }
 
-  deleteBill(bill: Bill): void {
+  deleteBill(bill: BillSummary): void {
     if (this.hasPayments(bill)) {
       this.toastService.error('Cannot delete bill because payments have been recorded. Void payments first.');
       return;
@@ -519,7 +525,7 @@ export class BillHistoryComponent implements OnInit {
     }
   }
 
-  openPaymentModal(bill: Bill) {
+  openPaymentModal(bill: BillSummary) {
     this.selectedBillForPayment.set(bill);
     this.showPaymentModal.set(true);
   }
@@ -536,7 +542,18 @@ export class BillHistoryComponent implements OnInit {
     });
   }
 
-  printBill(bill: Bill): void {
+  printBill(bill: Bill | BillSummary): void {
+    if ('items' in bill) {
+      this.printBillDetails(bill);
+      return;
+    }
+    this.billService.getById(bill.id).subscribe({
+      next: (fullBill) => this.printBillDetails(fullBill),
+      error: () => this.toastService.error('Failed to load bill')
+    });
+  }
+
+  private printBillDetails(bill: Bill): void {
     // Create print window with bill details
     const printWindow = window.open('', '_blank');
     if (!printWindow) return;
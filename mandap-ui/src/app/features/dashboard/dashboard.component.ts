@@ -2,7 +2,7 @@ import { Component, OnInit, inject, signal } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { RouterLink } from '@angular/router';
 import { CustomerService, BillService, RentalOrderService } from '@core/services';
-import { Bill, RentalOrder } from '@core/models';
+import { BillSummary, RentalOrder } from '@core/models';
 import { CurrencyInrPipe, DateFormatPipe, StatusBadgeComponent, LoadingSpinnerComponent } from '@shared';
 import { NgxEchartsDirective } from 'ngx-echarts';
 import { EChartsOption } from 'echarts';
@@ -162,7 +162,7 @@ export class DashboardComponent implements OnInit {
     billsThisYear: 0,
     totalRevenue: 0
   });
-  recentBills = signal<Bill[]>([]);
+  recentBills = signal<BillSummary[]>([]);
 
   billStatusOptions = signal<EChartsOption>({});
   financialOptions = signal<EChartsOption>({});
@@ -213,7 +213,7 @@ export class DashboardComponent implements OnInit {
     });
   }
 
-  private generateBillCharts(bills: Bill[]): void {
+  private generateBillCharts(bills: BillSummary[]): void {
     // 1. Bill Status Counts
     const paid = bills.filter(b => b.paymentStatus === 'PAID').length;
     const partial = bills.filter(b => b.paymentStatus === 'PARTIAL').length;
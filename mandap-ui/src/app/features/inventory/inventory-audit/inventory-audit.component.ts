@@ -90,6 +90,15 @@ import { DateFormatPipe } from '@shared';
               </div>
             }
 
+            @if (hasMore()) {
+              <div class="text-center">
+                <button (click)="loadMore()" [disabled]="isLoadingMore()" class="px-5 py-2 rounded-full bg-slate-800 text-slate-300 hover:bg-slate-700 hover:text-white transition-all text-sm">
+                  <i class="fas" [class.fa-spinner]="isLoadingMore()" [class.fa-spin]="isLoadingMore()" [class.fa-history]="!isLoadingMore()"></i>
+                  Load older changes
+                </button>
+              </div>
+            }
+
             @if (auditHistory().length === 0) {
               <div class="text-center py-20 bg-[var(--color-bg-card)] rounded-3xl border border-dashed border-slate-700">
                 <i class="fas fa-history text-5xl text-slate-700 mb-4"></i>
@@ -112,6 +121,10 @@ export class InventoryAuditComponent implements OnInit {
 
     auditHistory = signal<any[]>([]);
     isLoading = signal(true);
+    isLoadingMore = signal(false);
+    hasMore = signal(false);
+    private auditId = 0;
+    private page = 0;
     itemName = signal('Item');
 
     ngOnInit(): void {
@@ -125,9 +138,12 @@ export class InventoryAuditComponent implements OnInit {
         // Also fetch item info for name display
         this.inventoryService.getById(id).subscribe(item => this.itemName.set(item.nameGujarati));
 
+        this.auditId = id;
+        this.page = 0;
         this.inventoryService.getAuditHistory(id).subscribe({
             next: (data) => {
-                this.auditHistory.set(data);
+                this.auditHistory.set(data.items);
+                this.hasMore.set(data.hasMore);
                 this.isLoading.set(false);
             },
             error: () => {
@@ -136,6 +152,21 @@ export class InventoryAuditComponent implements OnInit {
         });
     }
 
+    loadMore(): void {
+        this.isLoadingMore.set(true);
+        this.inventoryService.getAuditHistory(this.auditId, this.page + 1).subscribe({
+            next: (data) => {
+                this.page = data.page;
+                this.auditHistory.update(history => [...history, ...data.items]);
+                this.hasMore.set(data.hasMore);
+                this.isLoadingMore.set(false);
+            },
+            error: () => {
+                this.isLoadingMore.set(false);
+            }
+        });
+    }
+
     goBack(): void {
         this.router.navigate(['/inventory']);
     }
@@ -895,6 +895,10 @@ export class RentalOrdersComponent implements OnInit {
     this.selectedOrder.set(order);
     this.showHistory.set(true);
     this.viewModal.open();
+    // The list endpoint omits voucher history, so load it for this order only
+    this.rentalOrderService.getById(order.id!).subscribe({
+      next: (fullOrder) => this.selectedOrder.set(fullOrder)
+    });
   }
 
   viewAudit(order: RentalOrder): void {
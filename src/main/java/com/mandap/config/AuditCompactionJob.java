@@ -0,0 +1,37 @@
+package com.mandap.config;
+
+import com.mandap.service.AuditArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nightly compaction of the rental order audit tables when
+ * app.audit.compaction.enabled is true. Revisions older than the horizon are
+ * collapsed into a checkpoint and archived (see {@link AuditArchiveService}).
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "app.audit.compaction.enabled", havingValue = "true")
+public class AuditCompactionJob {
+
+    @Autowired
+    private AuditArchiveService auditArchiveService;
+
+    @Value("${app.audit.compaction.horizon-days:365}")
+    private int horizonDays;
+
+    @Scheduled(cron = "${app.audit.compaction.cron:0 30 2 * * *}")
+    public void compact() {
+        try {
+            auditArchiveService.compactRentalOrders(horizonDays);
+        } catch (RuntimeException e) {
+            log.error("Rental order audit compaction failed", e);
+        }
+    }
+}
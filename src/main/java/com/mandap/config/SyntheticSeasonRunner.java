@@ -0,0 +1,47 @@
+package com.mandap.config;
+
+import com.mandap.service.AtpLedger;
+import com.mandap.service.SyntheticSeasonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the database with a synthetic season at startup when the
+ * "synthetic-season" profile is active, e.g.
+ * {@code --spring.profiles.active=synthetic-season --app.synthetic-season.scale=10}.
+ * Scale 1 is 1000 customers and 3000 orders.
+ */
+@Slf4j
+@Component
+@Profile("synthetic-season")
+public class SyntheticSeasonRunner implements ApplicationRunner {
+
+    @Autowired
+    private SyntheticSeasonGenerator syntheticSeasonGenerator;
+
+    @Autowired
+    private AtpLedger atpLedger;
+
+    @Value("${app.synthetic-season.seed:42}")
+    private long seed;
+
+    @Value("${app.synthetic-season.scale:1.0}")
+    private double scale;
+
+    @Value("${app.synthetic-season.items:60}")
+    private int items;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int customers = Math.max(1, (int) Math.round(1000 * scale));
+        int orders = (int) Math.round(3000 * scale);
+        log.info("Generating synthetic season: seed={}, scale={}", seed, scale);
+        syntheticSeasonGenerator.generate(seed, customers, orders, items);
+        atpLedger.rebuild();
+    }
+}
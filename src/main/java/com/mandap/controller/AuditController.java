@@ -0,0 +1,41 @@
+package com.mandap.controller;
+
+import com.mandap.dto.AuditCompactionDTO;
+import com.mandap.dto.AuditTimelineEntryDTO;
+import com.mandap.dto.CursorPageDTO;
+import com.mandap.service.AuditArchiveService;
+import com.mandap.service.AuditTimelineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/audit")
+@CrossOrigin(origins = "*")
+public class AuditController {
+
+    @Autowired
+    private AuditTimelineService auditTimelineService;
+
+    @Autowired
+    private AuditArchiveService auditArchiveService;
+
+    @GetMapping("/timeline")
+    public ResponseEntity<CursorPageDTO<AuditTimelineEntryDTO>> getTimeline(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String entityType) {
+        return ResponseEntity.ok(auditTimelineService.getTimeline(cursor, size, username, from, to, entityType));
+    }
+
+    @PostMapping("/compact")
+    public ResponseEntity<AuditCompactionDTO> compactRentalOrders(@RequestParam Integer horizonDays) {
+        return ResponseEntity.ok(auditArchiveService.compactRentalOrders(horizonDays));
+    }
+}
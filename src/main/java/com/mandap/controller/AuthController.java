@@ -6,15 +6,19 @@ import com.mandap.dto.LoginResponse;
 import com.mandap.entity.User;
 import com.mandap.security.CustomUserDetailsService;
 import com.mandap.security.JwtTokenProvider;
+import com.mandap.security.LoginExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,16 +36,33 @@ public class AuthController {
         @Autowired
         private CustomUserDetailsService userDetailsService;
 
+        @Autowired
+        private LoginExecutor loginExecutor;
+
+        /**
+         * Password checks run on the login pool so the request thread is freed
+         * while BCrypt works; when the pool is saturated the login is refused
+         * with 503 straight away.
+         */
         @PostMapping("/login")
-        public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+        public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest) {
                 log.info("Login attempt for user: {}", loginRequest.getUsername());
+                try {
+                        return loginExecutor.submit(() -> authenticate(loginRequest));
+                } catch (RejectedExecutionException e) {
+                        return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                        .header(HttpHeaders.RETRY_AFTER, "2")
+                                        .body(ApiResponse.error("Too many logins in progress, please try again")));
+                }
+        }
+
+        private ResponseEntity<?> authenticate(LoginRequest loginRequest) {
                 try {
                         Authentication authentication = authenticationManager.authenticate(
                                         new UsernamePasswordAuthenticationToken(
                                                         loginRequest.getUsername(),
                                                         loginRequest.getPassword()));
 
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
                         String jwt = tokenProvider.generateToken(authentication);
 
                         User user = userDetailsService.getUserByUsername(loginRequest.getUsername());
@@ -2,15 +2,20 @@ package com.mandap.controller;
 
 import com.mandap.dto.ApiResponse;
 import com.mandap.dto.BillDTO;
+import com.mandap.dto.BillSummaryDTO;
+import com.mandap.dto.CursorPageDTO;
+import com.mandap.entity.Bill;
 import com.mandap.entity.User;
 import com.mandap.security.CustomUserDetailsService;
 import com.mandap.service.BillService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -26,10 +31,31 @@ public class BillController {
     private CustomUserDetailsService userDetailsService;
 
     @GetMapping
-    public ResponseEntity<List<BillDTO>> getAllBills() {
+    public ResponseEntity<List<BillSummaryDTO>> getAllBills() {
         return ResponseEntity.ok(billService.getAllBills());
     }
 
+    @GetMapping(params = { "from", "to" })
+    public ResponseEntity<CursorPageDTO<BillSummaryDTO>> getBillsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String direction) {
+        return ResponseEntity.ok(billService.getBillsByDateRange(from, to, cursor, size, direction));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<BillSummaryDTO>> getBillsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) Bill.PaymentStatus paymentStatus,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String q) {
+        return ResponseEntity.ok(billService.getBillsPage(cursor, size, direction, paymentStatus, customerId, q));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<BillDTO> getBillById(@PathVariable Long id) {
         return ResponseEntity.ok(billService.getBillById(id));
@@ -41,17 +67,17 @@ public class BillController {
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<BillDTO>> getBillsByCustomer(@PathVariable Long customerId) {
+    public ResponseEntity<List<BillSummaryDTO>> getBillsByCustomer(@PathVariable Long customerId) {
         return ResponseEntity.ok(billService.getBillsByCustomer(customerId));
     }
 
     @GetMapping("/year/{year}")
-    public ResponseEntity<List<BillDTO>> getBillsByYear(@PathVariable Integer year) {
+    public ResponseEntity<List<BillSummaryDTO>> getBillsByYear(@PathVariable Integer year) {
         return ResponseEntity.ok(billService.getBillsByYear(year));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<BillDTO>> searchBills(@RequestParam String query) {
+    public ResponseEntity<List<BillSummaryDTO>> searchBills(@RequestParam String query) {
         return ResponseEntity.ok(billService.searchBills(query));
     }
 
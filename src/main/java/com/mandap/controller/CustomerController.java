@@ -1,7 +1,9 @@
 package com.mandap.controller;
 
 import com.mandap.dto.ApiResponse;
+import com.mandap.dto.CursorPageDTO;
 import com.mandap.dto.CustomerDTO;
+import com.mandap.dto.CustomerSuggestionDTO;
 import com.mandap.service.CustomerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +26,21 @@ public class CustomerController {
         return ResponseEntity.ok(customerService.getAllCustomers());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<CustomerDTO>> getCustomersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String q) {
+        return ResponseEntity.ok(customerService.getCustomersPage(cursor, size, direction, q));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<CustomerSuggestionDTO>> suggestCustomers(@RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(customerService.suggestCustomers(q, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CustomerDTO> getCustomerById(@PathVariable Long id) {
         return ResponseEntity.ok(customerService.getCustomerById(id));
@@ -56,7 +73,10 @@ public class CustomerController {
     }
 
     @GetMapping("/{id}/audit")
-    public ResponseEntity<List<com.mandap.dto.CustomerAuditDTO>> getCustomerAuditHistory(@PathVariable Long id) {
-        return ResponseEntity.ok(customerService.getCustomerAuditHistory(id));
+    public ResponseEntity<com.mandap.dto.PageDTO<com.mandap.dto.CustomerAuditDTO>> getCustomerAuditHistory(@PathVariable Long id,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean includeEntity) {
+        return ResponseEntity.ok(customerService.getCustomerAuditHistory(id, page, size, includeEntity));
     }
 }
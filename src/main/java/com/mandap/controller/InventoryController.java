@@ -1,9 +1,16 @@
 package com.mandap.controller;
 
+import com.mandap.dto.AtpDriftDTO;
+import com.mandap.dto.InventoryCatalogueStatsDTO;
 import com.mandap.dto.InventoryItemDTO;
+import com.mandap.service.AtpLedger;
+import com.mandap.service.InventoryCatalogueCache;
 import com.mandap.service.InventoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,9 +25,30 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private AtpLedger atpLedger;
+
     @GetMapping
-    public ResponseEntity<List<InventoryItemDTO>> getAllItems() {
-        return ResponseEntity.ok(inventoryService.getAllItems());
+    public ResponseEntity<List<InventoryItemDTO>> getAllItems(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        InventoryCatalogueCache.Snapshot catalogue = inventoryService.getCatalogue();
+        // no-cache: browsers keep the list and revalidate it with If-None-Match
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (catalogue.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(catalogue.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(catalogue.etag())
+                .cacheControl(cacheControl)
+                .body(catalogue.items());
+    }
+
+    @GetMapping("/catalogue/stats")
+    public ResponseEntity<InventoryCatalogueStatsDTO> getCatalogueStats() {
+        return ResponseEntity.ok(inventoryService.getCatalogueStats());
     }
 
     @PostMapping
@@ -59,8 +87,23 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getItemUsage(id));
     }
 
+    @GetMapping("/atp/reconcile")
+    public ResponseEntity<List<AtpDriftDTO>> reconcileAtpLedger() {
+        return ResponseEntity.ok(atpLedger.reconcile());
+    }
+
+    @PostMapping("/atp/rebuild")
+    public ResponseEntity<List<AtpDriftDTO>> rebuildAtpLedger() {
+        log.warn("Rebuilding ATP ledger from database");
+        atpLedger.rebuild();
+        return ResponseEntity.ok(atpLedger.reconcile());
+    }
+
     @GetMapping("/{id}/audit")
-    public ResponseEntity<List<com.mandap.dto.InventoryAuditDTO>> getInventoryAuditHistory(@PathVariable Long id) {
-        return ResponseEntity.ok(inventoryService.getInventoryAuditHistory(id));
+    public ResponseEntity<com.mandap.dto.PageDTO<com.mandap.dto.InventoryAuditDTO>> getInventoryAuditHistory(@PathVariable Long id,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean includeEntity) {
+        return ResponseEntity.ok(inventoryService.getInventoryAuditHistory(id, page, size, includeEntity));
     }
 }
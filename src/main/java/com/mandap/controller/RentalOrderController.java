@@ -1,14 +1,19 @@
 package com.mandap.controller;
 
+import com.mandap.dto.BulkVoucherDTO;
+import com.mandap.dto.BulkVoucherResultDTO;
+import com.mandap.dto.CursorPageDTO;
 import com.mandap.dto.RentalOrderDTO;
 import com.mandap.dto.RentalOrderItemDTO;
 import com.mandap.dto.RentalOrderTransactionDTO;
+import com.mandap.entity.RentalOrder;
 import com.mandap.service.RentalOrderService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 @Slf4j
@@ -21,13 +26,26 @@ public class RentalOrderController {
     private RentalOrderService rentalOrderService;
 
     @GetMapping
-    public ResponseEntity<List<RentalOrderDTO>> getAllOrders() {
-        return ResponseEntity.ok(rentalOrderService.getAllOrders());
+    public ResponseEntity<List<RentalOrderDTO>> getAllOrders(@RequestParam(required = false) String include) {
+        return ResponseEntity.ok(rentalOrderService.getAllOrders(includesTransactions(include)));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<RentalOrderDTO>> getOrdersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) RentalOrder.RentalOrderStatus status,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String include) {
+        return ResponseEntity.ok(rentalOrderService.getOrdersPage(cursor, size, direction, status, customerId, q,
+                includesTransactions(include)));
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<RentalOrderDTO>> getActiveOrders() {
-        return ResponseEntity.ok(rentalOrderService.getActiveOrders());
+    public ResponseEntity<List<RentalOrderDTO>> getActiveOrders(@RequestParam(required = false) String include) {
+        return ResponseEntity.ok(rentalOrderService.getActiveOrders(includesTransactions(include)));
     }
 
     @GetMapping("/{id}")
@@ -70,6 +88,13 @@ public class RentalOrderController {
         return ResponseEntity.ok(result);
     }
 
+    @PostMapping("/vouchers")
+    public ResponseEntity<List<BulkVoucherResultDTO>> applyBulkVoucher(@RequestBody BulkVoucherDTO dto) {
+        log.info("Applying bulk {} voucher={} for {} orders", dto.getType(), dto.getVoucherNumber(),
+                dto.getOrders() != null ? dto.getOrders().size() : 0);
+        return ResponseEntity.ok(rentalOrderService.applyBulkVoucher(dto));
+    }
+
     @GetMapping("/customer/{customerId}/unreturned")
     public ResponseEntity<List<RentalOrderItemDTO>> getUnreturnedItemsByCustomer(
             @PathVariable Long customerId) {
@@ -96,7 +121,19 @@ public class RentalOrderController {
     }
 
     @GetMapping("/{id}/audit")
-    public ResponseEntity<List<com.mandap.dto.RentalOrderAuditDTO>> getRentalOrderAuditHistory(@PathVariable Long id) {
-        return ResponseEntity.ok(rentalOrderService.getRentalOrderAuditHistory(id));
+    public ResponseEntity<com.mandap.dto.PageDTO<com.mandap.dto.RentalOrderAuditDTO>> getRentalOrderAuditHistory(@PathVariable Long id,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean includeEntity,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(rentalOrderService.getRentalOrderAuditHistory(id, page, size, includeEntity,
+                includeArchived));
+    }
+
+    /**
+     * List endpoints skip voucher history unless called with ?include=transactions.
+     */
+    private boolean includesTransactions(String include) {
+        return include != null && Arrays.asList(include.split(",")).contains("transactions");
     }
 }
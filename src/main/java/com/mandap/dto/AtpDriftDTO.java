@@ -0,0 +1,18 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtpDriftDTO {
+    private Long inventoryItemId;
+    private String itemNameEnglish;
+    private int ledgerCommitted; // In-memory committed quantity
+    private int databaseCommitted; // Sum of (Booked - Returned) over active orders
+    private int drift; // Ledger - Database
+}
@@ -0,0 +1,20 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditCompactionDTO {
+    private LocalDateTime horizon; // Revisions before this were compacted
+    private int ordersCompacted;
+    private int orderRowsArchived; // rental_orders_aud rows
+    private int itemRowsArchived; // rental_order_items_aud rows
+    private long elapsedMs;
+}
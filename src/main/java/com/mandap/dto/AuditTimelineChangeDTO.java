@@ -0,0 +1,17 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditTimelineChangeDTO {
+    private String entityType; // CUSTOMER, INVENTORY_ITEM, RENTAL_ORDER
+    private Long entityId;
+    private String action; // CREATE, UPDATE, DELETE
+    private String label; // Customer name, item name or order number at that revision
+}
@@ -0,0 +1,19 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditTimelineEntryDTO {
+    private Integer revisionNumber;
+    private LocalDateTime revisionDate;
+    private String changedBy;
+    private List<AuditTimelineChangeDTO> changes; // Entities written in this revision
+}
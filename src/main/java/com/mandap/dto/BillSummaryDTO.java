@@ -0,0 +1,42 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight bill row for list screens. The full {@link BillDTO} with items
+ * and payments is only returned by the detail endpoints.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillSummaryDTO {
+    private Long id;
+    private String billNumber;
+    private Long customerId;
+    private String customerName;
+    private String customerMobile;
+    private String palNumbers;
+    private String billType; // ESTIMATE or INVOICE
+    private String paymentStatus; // DUE, PAID, PARTIAL
+    private BigDecimal totalAmount;
+    private BigDecimal deposit;
+    private BigDecimal settlementDiscount;
+    private BigDecimal netPayable;
+    private BigDecimal toBeReturned;
+    private LocalDate billDate;
+    private LocalDateTime createdAt;
+    private Long rentalOrderId;
+    private int itemCount;
+    private int lostItemCount;
+    private BigDecimal lineTotal; // Sum of item totals
+    private int paymentCount;
+    private BigDecimal paymentTotal; // Sum of payment amounts
+}
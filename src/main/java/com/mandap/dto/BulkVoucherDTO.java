@@ -0,0 +1,19 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkVoucherDTO {
+    private String type; // DISPATCH, RETURN
+    private String voucherNumber; // Default for orders that give none
+    private String vehicleNumber; // Default for orders that give none
+    private List<RentalOrderTransactionDTO> orders; // rentalOrderId and lines per order
+}
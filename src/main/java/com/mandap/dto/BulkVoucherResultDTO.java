@@ -0,0 +1,19 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkVoucherResultDTO {
+    private Long rentalOrderId;
+    private String orderNumber;
+    private String status;
+    private Long transactionId;
+    private int lines;
+    private int quantity;
+}
@@ -0,0 +1,19 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSuggestionDTO {
+    private Long id;
+    private String name;
+    private String mobile;
+    private List<String> palNumbers;
+}
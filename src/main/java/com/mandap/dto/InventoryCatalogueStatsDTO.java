@@ -0,0 +1,21 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryCatalogueStatsDTO {
+    private boolean enabled;
+    private Long version; // Null until first loaded
+    private int items;
+    private Integer pendingChanges; // Items marked changed since the last refresh, null when a full reload is due
+    private long hits;
+    private long misses;
+    private long partialRefreshes;
+    private long fullReloads;
+}
@@ -0,0 +1,24 @@
+package com.mandap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyntheticSeasonDTO {
+    private long seed;
+    private int inventoryItems;
+    private int customers;
+    private int palNumbers;
+    private int orders;
+    private int orderItems;
+    private int transactions; // Dispatch and return vouchers
+    private int bills;
+    private int payments;
+    private int revisions; // Envers revinfo rows
+    private long elapsedMs;
+}
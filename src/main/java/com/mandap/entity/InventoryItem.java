@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @org.hibernate.envers.Audited
+@org.hibernate.annotations.DynamicUpdate // Only write changed columns so entity saves never overwrite stock deltas
 public class InventoryItem {
 
     public enum ItemCategory {
@@ -0,0 +1,75 @@
+package com.mandap.repository;
+
+import com.mandap.entity.AuditRevisionEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Cross-entity view of the Envers audit tables. Revisions are paged from
+ * revinfo alone (newest first, keyset on (timestamp, id)), then the entities
+ * changed in the page's revisions are read from the _aud tables by rev.
+ */
+@Repository
+public interface AuditRevisionRepository extends JpaRepository<AuditRevisionEntity, Integer> {
+
+    // Entity types in the audit timeline
+    String CUSTOMER = "CUSTOMER";
+    String INVENTORY_ITEM = "INVENTORY_ITEM";
+    String RENTAL_ORDER = "RENTAL_ORDER";
+
+    interface RevisionView {
+        Integer getRevisionNumber();
+
+        Long getRevisionTimestamp();
+
+        String getUsername();
+    }
+
+    interface ChangedEntityView {
+        Integer getRevisionNumber();
+
+        String getEntityType();
+
+        Long getEntityId();
+
+        Integer getRevisionType();
+
+        String getLabel();
+    }
+
+    @Query(value = "SELECT r.id AS revisionNumber, r.timestamp AS revisionTimestamp, r.username AS username " +
+            "FROM revinfo r WHERE " +
+            "(:username IS NULL OR r.username = :username) " +
+            "AND (:fromTimestamp IS NULL OR r.timestamp >= :fromTimestamp) " +
+            "AND (:toTimestamp IS NULL OR r.timestamp < :toTimestamp) " +
+            "AND (:cursorTimestamp IS NULL OR r.timestamp < :cursorTimestamp " +
+            "OR (r.timestamp = :cursorTimestamp AND r.id < :cursorId)) " +
+            "AND (:entityType IS NULL " +
+            "OR (:entityType = '" + CUSTOMER + "' AND EXISTS (SELECT 1 FROM customers_aud a WHERE a.rev = r.id)) " +
+            "OR (:entityType = '" + INVENTORY_ITEM + "' " +
+            "AND EXISTS (SELECT 1 FROM inventory_items_aud a WHERE a.rev = r.id)) " +
+            "OR (:entityType = '" + RENTAL_ORDER + "' " +
+            "AND EXISTS (SELECT 1 FROM rental_orders_aud a WHERE a.rev = r.id))) " +
+            "ORDER BY r.timestamp DESC, r.id DESC", nativeQuery = true)
+    List<RevisionView> findTimelinePage(String username, Long fromTimestamp, Long toTimestamp, String entityType,
+            Long cursorTimestamp, Integer cursorId, Pageable pageable);
+
+    // Rental order lines are not listed; collection changes also write a
+    // rental_orders_aud row for the order
+    @Query(value = "SELECT a.rev AS revisionNumber, '" + CUSTOMER + "' AS entityType, a.id AS entityId, " +
+            "a.revtype AS revisionType, a.name AS label FROM customers_aud a " +
+            "WHERE a.rev IN :revisions AND (:entityType IS NULL OR :entityType = '" + CUSTOMER + "') " +
+            "UNION ALL " +
+            "SELECT a.rev, '" + INVENTORY_ITEM + "', a.id, a.revtype, a.name_english FROM inventory_items_aud a " +
+            "WHERE a.rev IN :revisions AND (:entityType IS NULL OR :entityType = '" + INVENTORY_ITEM + "') " +
+            "UNION ALL " +
+            "SELECT a.rev, '" + RENTAL_ORDER + "', a.id, a.revtype, a.order_number FROM rental_orders_aud a " +
+            "WHERE a.rev IN :revisions AND (:entityType IS NULL OR :entityType = '" + RENTAL_ORDER + "') " +
+            "ORDER BY revisionNumber DESC, entityType, entityId", nativeQuery = true)
+    List<ChangedEntityView> findChangedEntities(Collection<Integer> revisions, String entityType);
+}
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +16,19 @@ public interface BillItemRepository extends JpaRepository<BillItem, Long> {
     List<BillItem> findByBillId(Long billId);
 
     void deleteByBillId(Long billId);
+
+    interface BillLineTotalsView {
+        Long getBillId();
+
+        Long getItemCount();
+
+        BigDecimal getLineTotal();
+
+        Long getLostItemCount();
+    }
+
+    @Query("SELECT bi.bill.id AS billId, COUNT(bi) AS itemCount, SUM(bi.total) AS lineTotal, " +
+            "SUM(CASE WHEN bi.isLostItem = true THEN 1 ELSE 0 END) AS lostItemCount " +
+            "FROM BillItem bi WHERE bi.bill.id IN :billIds GROUP BY bi.bill.id")
+    List<BillLineTotalsView> getLineTotals(Collection<Long> billIds);
 }
@@ -1,10 +1,15 @@
 package com.mandap.repository;
 
 import com.mandap.entity.Bill;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,24 +18,106 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
 
     Optional<Bill> findByBillNumber(String billNumber);
 
-    @Query("SELECT b FROM Bill b JOIN FETCH b.customer ORDER BY b.createdAt DESC")
-    List<Bill> findAllWithDetails();
+    /**
+     * Bill list row projection; line, payment and order details are loaded
+     * separately in set-based queries keyed by bill id.
+     */
+    interface BillHeaderView {
+        Long getId();
 
-    @Query("SELECT b FROM Bill b JOIN FETCH b.customer WHERE b.customer.id = :customerId ORDER BY b.createdAt DESC")
-    List<Bill> findByCustomerId(Long customerId);
+        String getBillNumber();
 
-    @Query("SELECT b FROM Bill b JOIN FETCH b.customer c WHERE YEAR(b.billDate) = :year ORDER BY b.createdAt DESC")
-    List<Bill> findByYear(Integer year);
+        Long getCustomerId();
 
-    @Query("SELECT b FROM Bill b JOIN FETCH b.customer c WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) OR b.billNumber LIKE CONCAT('%', :query, '%')")
-    List<Bill> searchByCustomerNameOrBillNumber(String query);
+        String getCustomerName();
+
+        String getCustomerMobile();
+
+        Bill.BillType getBillType();
+
+        Bill.PaymentStatus getPaymentStatus();
+
+        BigDecimal getTotalAmount();
+
+        BigDecimal getDeposit();
+
+        BigDecimal getSettlementDiscount();
+
+        BigDecimal getNetPayable();
+
+        LocalDate getBillDate();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    String BILL_HEADER_SELECT = "SELECT b.id AS id, b.billNumber AS billNumber, c.id AS customerId, " +
+            "c.name AS customerName, c.mobile AS customerMobile, b.billType AS billType, " +
+            "b.paymentStatus AS paymentStatus, b.totalAmount AS totalAmount, b.deposit AS deposit, " +
+            "b.settlementDiscount AS settlementDiscount, b.netPayable AS netPayable, " +
+            "b.billDate AS billDate, b.createdAt AS createdAt FROM Bill b JOIN b.customer c ";
+
+    @Query(BILL_HEADER_SELECT + "ORDER BY b.createdAt DESC")
+    List<BillHeaderView> findAllHeaders();
+
+    // Bill dates are filtered as half-open ranges [from, to) so the
+    // bill_date index is used; wrapping the column in YEAR() scans the table
+    @Query(BILL_HEADER_SELECT + "WHERE b.billDate >= :from AND b.billDate < :to ORDER BY b.createdAt DESC")
+    List<BillHeaderView> findHeadersByBillDateRange(LocalDate from, LocalDate to);
+
+    @Query(BILL_HEADER_SELECT + "WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR b.billNumber LIKE CONCAT('%', :query, '%')")
+    List<BillHeaderView> searchHeaders(String query);
+
+    @Query(BILL_HEADER_SELECT + "WHERE b.id IN :ids")
+    List<BillHeaderView> findHeadersByIdIn(Collection<Long> ids);
+
+    // Keyset pagination on (createdAt, id), with the cursor also a plain bound on
+    // createdAt as in RentalOrderRepository
+    @Query("SELECT b.id FROM Bill b WHERE " +
+            "(:paymentStatus IS NULL OR b.paymentStatus = :paymentStatus) " +
+            "AND (:customerId IS NULL OR b.customer.id = :customerId) " +
+            "AND (:query IS NULL OR LOWER(b.customer.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR b.billNumber LIKE CONCAT('%', :query, '%')) " +
+            "AND (:cursorCreatedAt IS NULL OR b.createdAt <= :cursorCreatedAt " +
+            "AND (b.createdAt < :cursorCreatedAt OR b.id < :cursorId)) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Long> findPageIdsNewestFirst(Bill.PaymentStatus paymentStatus, Long customerId, String query,
+            LocalDateTime cursorCreatedAt, Long cursorId, Pageable pageable);
+
+    @Query("SELECT b.id FROM Bill b WHERE " +
+            "(:paymentStatus IS NULL OR b.paymentStatus = :paymentStatus) " +
+            "AND (:customerId IS NULL OR b.customer.id = :customerId) " +
+            "AND (:query IS NULL OR LOWER(b.customer.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR b.billNumber LIKE CONCAT('%', :query, '%')) " +
+            "AND (:cursorCreatedAt IS NULL OR b.createdAt >= :cursorCreatedAt " +
+            "AND (b.createdAt > :cursorCreatedAt OR b.id > :cursorId)) " +
+            "ORDER BY b.createdAt ASC, b.id ASC")
+    List<Long> findPageIdsOldestFirst(Bill.PaymentStatus paymentStatus, Long customerId, String query,
+            LocalDateTime cursorCreatedAt, Long cursorId, Pageable pageable);
+
+    // Keyset pages over a bill date range, ordered by (billDate, id)
+    @Query("SELECT b.id FROM Bill b WHERE b.billDate >= :from AND b.billDate < :to " +
+            "AND (:cursorBillDate IS NULL OR b.billDate < :cursorBillDate " +
+            "OR (b.billDate = :cursorBillDate AND b.id < :cursorId)) " +
+            "ORDER BY b.billDate DESC, b.id DESC")
+    List<Long> findRangePageIdsNewestFirst(LocalDate from, LocalDate to, LocalDate cursorBillDate, Long cursorId,
+            Pageable pageable);
+
+    @Query("SELECT b.id FROM Bill b WHERE b.billDate >= :from AND b.billDate < :to " +
+            "AND (:cursorBillDate IS NULL OR b.billDate > :cursorBillDate " +
+            "OR (b.billDate = :cursorBillDate AND b.id > :cursorId)) " +
+            "ORDER BY b.billDate ASC, b.id ASC")
+    List<Long> findRangePageIdsOldestFirst(LocalDate from, LocalDate to, LocalDate cursorBillDate, Long cursorId,
+            Pageable pageable);
+
+    @Query(BILL_HEADER_SELECT + "WHERE c.id = :customerId ORDER BY b.createdAt DESC")
+    List<BillHeaderView> findHeadersByCustomerId(Long customerId);
+
+    boolean existsByCustomerId(Long customerId);
 
     @Query("SELECT MAX(CAST(SUBSTRING(b.billNumber, LENGTH(:prefix) + 1) AS integer)) FROM Bill b WHERE b.billNumber LIKE CONCAT(:prefix, '%')")
     Integer findMaxBillNumberForPrefix(String prefix);
 
     @Query("SELECT COUNT(b) > 0 FROM Bill b WHERE b.customer.id = :customerId AND b.paymentStatus IN ('DUE', 'PARTIAL')")
     boolean hasPendingBills(Long customerId);
-
-    @Query("SELECT DISTINCT b.customer.id FROM Bill b WHERE b.paymentStatus IN ('DUE', 'PARTIAL')")
-    List<Long> findCustomerIdsWithPendingBills();
 }
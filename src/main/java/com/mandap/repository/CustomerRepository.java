@@ -1,10 +1,12 @@
 package com.mandap.repository;
 
 import com.mandap.entity.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.repository.history.RevisionRepository;
@@ -15,9 +17,57 @@ public interface CustomerRepository extends JpaRepository<Customer, Long>, Revis
     @Query("SELECT c FROM Customer c WHERE c.active = true ORDER BY c.name")
     List<Customer> findAllActive();
 
+    // Customer flag bits returned by getFlagMasks
+    int FLAG_UNBILLED_ORDERS = 1;
+    int FLAG_BILLED_ORDERS = 2;
+    int FLAG_ANY_ORDERS = 4;
+    int FLAG_PENDING_BILLS = 8;
+    int FLAG_ACTIVE_ORDERS = 16;
+
+    // Returns [customerId, flagMask] pairs in one grouped pass over orders;
+    // pending bills are an EXISTS probe so they don't multiply the order rows.
+    // Customers without orders or bills get 0
+    String FLAG_MASK_SELECT = "SELECT c.id, " +
+            "MAX(CASE WHEN ro.id IS NOT NULL AND ro.bill IS NULL AND ro.status <> 'CANCELLED' " +
+            "THEN " + FLAG_UNBILLED_ORDERS + " ELSE 0 END) + " +
+            "MAX(CASE WHEN ro.bill IS NOT NULL THEN " + FLAG_BILLED_ORDERS + " ELSE 0 END) + " +
+            "MAX(CASE WHEN ro.id IS NOT NULL THEN " + FLAG_ANY_ORDERS + " ELSE 0 END) + " +
+            "MAX(CASE WHEN ro.status NOT IN ('COMPLETED', 'CANCELLED') " +
+            "THEN " + FLAG_ACTIVE_ORDERS + " ELSE 0 END) + " +
+            "CASE WHEN EXISTS (SELECT 1 FROM Bill b WHERE b.customer = c " +
+            "AND b.paymentStatus IN ('DUE', 'PARTIAL')) THEN " + FLAG_PENDING_BILLS + " ELSE 0 END " +
+            "FROM Customer c " +
+            "LEFT JOIN RentalOrder ro ON ro.customer = c ";
+
+    @Query(FLAG_MASK_SELECT + "WHERE c.id IN :customerIds GROUP BY c.id")
+    List<Object[]> getFlagMasks(Collection<Long> customerIds);
+
+    // Same as getFlagMasks for every active customer, without binding their ids
+    @Query(FLAG_MASK_SELECT + "WHERE c.active = true GROUP BY c.id")
+    List<Object[]> getActiveFlagMasks();
+
+    // Returns [customerId, palNumber] pairs for the given customers
+    @Query("SELECT c.id, p FROM Customer c JOIN c.palNumbers p WHERE c.id IN :customerIds")
+    List<Object[]> findPalNumbersByCustomerIds(Collection<Long> customerIds);
+
     @Query("SELECT c FROM Customer c WHERE c.active = true AND (LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) OR c.mobile LIKE CONCAT('%', :query, '%'))")
     List<Customer> searchByNameOrMobile(String query);
 
+    // Keyset pagination on (name, id) over active customers
+    @Query("SELECT c FROM Customer c WHERE c.active = true " +
+            "AND (:query IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR c.mobile LIKE CONCAT('%', :query, '%')) " +
+            "AND (:cursorName IS NULL OR c.name > :cursorName OR (c.name = :cursorName AND c.id > :cursorId)) " +
+            "ORDER BY c.name ASC, c.id ASC")
+    List<Customer> findPageByNameAscending(String query, String cursorName, Long cursorId, Pageable pageable);
+
+    @Query("SELECT c FROM Customer c WHERE c.active = true " +
+            "AND (:query IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR c.mobile LIKE CONCAT('%', :query, '%')) " +
+            "AND (:cursorName IS NULL OR c.name < :cursorName OR (c.name = :cursorName AND c.id < :cursorId)) " +
+            "ORDER BY c.name DESC, c.id DESC")
+    List<Customer> findPageByNameDescending(String query, String cursorName, Long cursorId, Pageable pageable);
+
     List<Customer> findByMobile(String mobile);
 
     boolean existsByMobile(String mobile);
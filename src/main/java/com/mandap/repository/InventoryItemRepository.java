@@ -1,10 +1,14 @@
 package com.mandap.repository;
 
 import com.mandap.entity.InventoryItem;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.repository.history.RevisionRepository;
@@ -13,6 +17,11 @@ import org.springframework.data.repository.history.RevisionRepository;
 public interface InventoryItemRepository
         extends JpaRepository<InventoryItem, Long>, RevisionRepository<InventoryItem, Long, Integer> {
 
+    // Columns shared by inventory_items and inventory_items_aud, for audit rows
+    // written in SQL. Must list every audited column of InventoryItem.
+    String AUDIT_COLUMNS = "id, name_gujarati, name_english, default_rate, category, display_order, " +
+            "total_stock, available_stock, active, created_at, updated_at";
+
     @Query("SELECT i FROM InventoryItem i WHERE i.active = true ORDER BY i.displayOrder")
     List<InventoryItem> findAllActiveOrdered();
 
@@ -27,4 +36,28 @@ public interface InventoryItemRepository
 
     @Query("SELECT COALESCE(MAX(i.displayOrder), 0) FROM InventoryItem i")
     Integer findMaxDisplayOrder();
+
+    // Row locks in id order, so bookings of the same items check committed
+    // totals one at a time across app instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.id IN :ids ORDER BY i.id")
+    List<InventoryItem> findAllByIdForUpdate(Collection<Long> ids);
+
+    @Query("SELECT i.availableStock FROM InventoryItem i WHERE i.id = :id")
+    Integer findAvailableStock(Long id);
+
+    // Stock movements are applied as single-row delta updates so concurrent
+    // dispatches and returns never overwrite each other. These bypass the
+    // entity, so the in-memory availableStock of a loaded item is not refreshed.
+
+    // Returns 0 if there is not enough available stock
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InventoryItem i SET i.availableStock = i.availableStock - :qty, i.updatedAt = LOCAL DATETIME " +
+            "WHERE i.id = :id AND i.availableStock >= :qty")
+    int decrementAvailableStock(Long id, int qty);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InventoryItem i SET i.availableStock = i.availableStock + :delta, i.updatedAt = LOCAL DATETIME " +
+            "WHERE i.id = :id")
+    int adjustAvailableStock(Long id, int delta);
 }
@@ -0,0 +1,19 @@
+package com.mandap.repository;
+
+import com.mandap.entity.NumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NumberSequenceRepository extends JpaRepository<NumberSequence, String> {
+
+    // Row lock so only one app instance at a time can take the next block
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM NumberSequence s WHERE s.sequenceKey = :sequenceKey")
+    Optional<NumberSequence> findForUpdate(String sequenceKey);
+}
@@ -2,11 +2,26 @@ package com.mandap.repository;
 
 import com.mandap.entity.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByBillId(Long billId);
+
+    interface BillPaymentTotalsView {
+        Long getBillId();
+
+        Long getPaymentCount();
+
+        BigDecimal getPaymentTotal();
+    }
+
+    @Query("SELECT p.bill.id AS billId, COUNT(p) AS paymentCount, SUM(p.amount) AS paymentTotal " +
+            "FROM Payment p WHERE p.bill.id IN :billIds GROUP BY p.bill.id")
+    List<BillPaymentTotalsView> getPaymentTotals(Collection<Long> billIds);
 }
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.repository.history.RevisionRepository;
@@ -33,4 +34,20 @@ public interface RentalOrderItemRepository
                         "WHERE roi.rentalOrder.status NOT IN ('CANCELLED', 'COMPLETED') " +
                         "GROUP BY roi.inventoryItem.id")
         List<Object[]> getInventoryTotals();
+
+        @Query("SELECT roi.inventoryItem.id, SUM(roi.bookedQty), SUM(COALESCE(roi.dispatchedQty, 0)), SUM(COALESCE(roi.returnedQty, 0)) "
+                        +
+                        "FROM RentalOrderItem roi " +
+                        "WHERE roi.inventoryItem.id IN :inventoryItemIds " +
+                        "AND roi.rentalOrder.status NOT IN ('CANCELLED', 'COMPLETED') " +
+                        "GROUP BY roi.inventoryItem.id")
+        List<Object[]> getInventoryTotals(Collection<Long> inventoryItemIds);
+
+        @Query("SELECT roi.inventoryItem.id, SUM(roi.bookedQty - COALESCE(roi.returnedQty, 0)) " +
+                        "FROM RentalOrderItem roi " +
+                        "WHERE roi.inventoryItem.id IN :inventoryItemIds " +
+                        "AND roi.rentalOrder.status NOT IN ('CANCELLED', 'COMPLETED') " +
+                        "AND (:excludeOrderId IS NULL OR roi.rentalOrder.id <> :excludeOrderId) " +
+                        "GROUP BY roi.inventoryItem.id")
+        List<Object[]> getCommittedQuantities(Collection<Long> inventoryItemIds, Long excludeOrderId);
 }
@@ -1,10 +1,14 @@
 package com.mandap.repository;
 
 import com.mandap.entity.RentalOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,30 +24,60 @@ public interface RentalOrderRepository
 
     List<RentalOrder> findByStatusOrderByOrderDateDesc(RentalOrder.RentalOrderStatus status);
 
-    @Query("SELECT ro FROM RentalOrder ro WHERE ro.status NOT IN ('COMPLETED', 'CANCELLED') ORDER BY ro.orderDate DESC")
+    @EntityGraph(attributePaths = { "customer", "items", "items.inventoryItem" })
+    @Query("SELECT ro FROM RentalOrder ro")
+    List<RentalOrder> findAllWithDetails();
+
+    @EntityGraph(attributePaths = { "customer", "items", "items.inventoryItem" })
+    @Query("SELECT ro FROM RentalOrder ro WHERE ro.id IN :ids")
+    List<RentalOrder> findAllWithDetailsByIdIn(Collection<Long> ids);
+
+    // Keyset pagination on (createdAt, id); details are loaded separately by id so
+    // the LIMIT is applied in SQL rather than over a collection fetch. The cursor
+    // is also a plain bound on createdAt, which the created_at indexes can range
+    // over; "createdAt < c OR (createdAt = c AND id < i)" alone cannot
+    @Query("SELECT ro.id FROM RentalOrder ro WHERE " +
+            "(:status IS NULL OR ro.status = :status) " +
+            "AND (:customerId IS NULL OR ro.customer.id = :customerId) " +
+            "AND (:query IS NULL OR LOWER(ro.customer.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR ro.orderNumber LIKE CONCAT('%', :query, '%')) " +
+            "AND (:cursorCreatedAt IS NULL OR ro.createdAt <= :cursorCreatedAt " +
+            "AND (ro.createdAt < :cursorCreatedAt OR ro.id < :cursorId)) " +
+            "ORDER BY ro.createdAt DESC, ro.id DESC")
+    List<Long> findPageIdsNewestFirst(RentalOrder.RentalOrderStatus status, Long customerId, String query,
+            LocalDateTime cursorCreatedAt, Long cursorId, Pageable pageable);
+
+    @Query("SELECT ro.id FROM RentalOrder ro WHERE " +
+            "(:status IS NULL OR ro.status = :status) " +
+            "AND (:customerId IS NULL OR ro.customer.id = :customerId) " +
+            "AND (:query IS NULL OR LOWER(ro.customer.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR ro.orderNumber LIKE CONCAT('%', :query, '%')) " +
+            "AND (:cursorCreatedAt IS NULL OR ro.createdAt >= :cursorCreatedAt " +
+            "AND (ro.createdAt > :cursorCreatedAt OR ro.id > :cursorId)) " +
+            "ORDER BY ro.createdAt ASC, ro.id ASC")
+    List<Long> findPageIdsOldestFirst(RentalOrder.RentalOrderStatus status, Long customerId, String query,
+            LocalDateTime cursorCreatedAt, Long cursorId, Pageable pageable);
+
+    // Active statuses listed rather than NOT IN ('COMPLETED', 'CANCELLED'), so
+    // the status index can serve it
+    @EntityGraph(attributePaths = { "customer", "items", "items.inventoryItem" })
+    @Query("SELECT ro FROM RentalOrder ro WHERE ro.status IN ('BOOKED', 'DISPATCHED', 'PARTIALLY_RETURNED', 'RETURNED') "
+            + "ORDER BY ro.orderDate DESC")
     List<RentalOrder> findActiveOrders();
 
     @Query("SELECT ro FROM RentalOrder ro WHERE ro.customer.id = :customerId AND ro.status IN ('DISPATCHED', 'PARTIALLY_RETURNED')")
     List<RentalOrder> findUnreturnedOrdersByCustomer(Long customerId);
 
-    // Fetch the latest order number for the current year prefix to generate the
-    // next number safely in Java
-    Optional<RentalOrder> findFirstByOrderNumberStartingWithOrderByIdDesc(String prefix);
+    // Highest order number for a year prefix, used to seed the number sequence
+    @Query("SELECT MAX(CAST(SUBSTRING(ro.orderNumber, LENGTH(:prefix) + 1) AS integer)) FROM RentalOrder ro WHERE ro.orderNumber LIKE CONCAT(:prefix, '%')")
+    Integer findMaxOrderNumberForPrefix(String prefix);
 
     Optional<RentalOrder> findByBillId(Long billId);
 
-    @Query("SELECT DISTINCT ro.customer.id FROM RentalOrder ro WHERE ro.bill IS NULL AND ro.status <> 'CANCELLED'")
-    List<Long> findCustomerIdsWithUnbilledOrders();
-
-    @Query("SELECT DISTINCT ro.customer.id FROM RentalOrder ro WHERE ro.bill IS NOT NULL")
-    List<Long> findCustomerIdsWithBilledOrders();
-
-    @Query("SELECT DISTINCT ro.customer.id FROM RentalOrder ro")
-    List<Long> findCustomerIdsWithAnyOrders();
+    // Returns [billId, rentalOrderId] pairs for the given bills
+    @Query("SELECT ro.bill.id, ro.id FROM RentalOrder ro WHERE ro.bill.id IN :billIds")
+    List<Object[]> findOrderIdsByBillIds(Collection<Long> billIds);
 
     @Query("SELECT COUNT(ro) > 0 FROM RentalOrder ro WHERE ro.customer.id = :customerId AND ro.status NOT IN ('COMPLETED', 'CANCELLED')")
     boolean hasActiveOrders(Long customerId);
-
-    @Query("SELECT DISTINCT ro.customer.id FROM RentalOrder ro WHERE ro.status NOT IN ('COMPLETED', 'CANCELLED')")
-    List<Long> findCustomerIdsWithActiveOrders();
 }
@@ -2,11 +2,17 @@ package com.mandap.repository;
 
 import com.mandap.entity.RentalOrderTransaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RentalOrderTransactionRepository extends JpaRepository<RentalOrderTransaction, Long> {
     List<RentalOrderTransaction> findByRentalOrderIdOrderByTransactionDateDesc(Long rentalOrderId);
+
+    @Query("SELECT t FROM RentalOrderTransaction t LEFT JOIN FETCH t.items ti LEFT JOIN FETCH ti.inventoryItem " +
+            "WHERE t.rentalOrder.id IN :rentalOrderIds ORDER BY t.transactionDate DESC")
+    List<RentalOrderTransaction> findByRentalOrderIdsWithItems(Collection<Long> rentalOrderIds);
 }
@@ -0,0 +1,68 @@
+package com.mandap.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory authority version per user. Tokens that carry their authorities
+ * also carry the version they were issued with; the filter only trusts them
+ * while the version is still current, otherwise it loads the user from the
+ * database. Versions start from the startup time, so tokens issued before a
+ * restart or by another instance fall back to the database instead of being
+ * trusted.
+ */
+@Component
+public class AuthorityVersionRegistry {
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    // Version of every user not bumped since the last bumpAll()
+    private volatile long baseVersion = sequence.get();
+
+    public long currentVersion(String username) {
+        return versions.getOrDefault(username, baseVersion);
+    }
+
+    public boolean isCurrent(String username, long version) {
+        return currentVersion(username) == version;
+    }
+
+    /**
+     * A user's authorities changed (roles, active flag, password).
+     */
+    public void bump(String username) {
+        versions.put(username, sequence.incrementAndGet());
+        afterCommit(() -> versions.put(username, sequence.incrementAndGet()));
+    }
+
+    /**
+     * A role changed; every user holding it is affected.
+     */
+    public void bumpAll() {
+        resetAll();
+        afterCommit(this::resetAll);
+    }
+
+    private void resetAll() {
+        baseVersion = sequence.incrementAndGet();
+        versions.clear();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
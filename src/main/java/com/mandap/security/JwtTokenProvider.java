@@ -2,16 +2,32 @@ package com.mandap.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+/**
+ * Issues and verifies JWTs. The signing key and parser are built once at
+ * startup. Tokens name their key in the "kid" header; older keys listed in
+ * app.jwt.previous-keys stay valid for verification so the secret can be
+ * rotated without logging everyone out. Tokens without a key id are checked
+ * against the current key.
+ */
 @Slf4j
 @Component
 public class JwtTokenProvider {
@@ -19,12 +35,66 @@ public class JwtTokenProvider {
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
+    @Value("${app.jwt.key-id:primary}")
+    private String jwtKeyId;
+
+    // Comma-separated keyId:secret pairs still accepted for verification
+    @Value("${app.jwt.previous-keys:}")
+    private String previousKeys;
+
     @Value("${app.jwt.expiration-ms}")
     private long jwtExpirationMs;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${app.jwt.embed-authorities:false}")
+    private boolean embedAuthorities;
+
+    @Autowired
+    private AuthorityVersionRegistry authorityVersionRegistry;
+
+    private static final String AUTHORITIES_CLAIM = "auth";
+
+    private static final String AUTHORITY_VERSION_CLAIM = "av";
+
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = toKey(jwtSecret);
+
+        Map<String, SecretKey> verificationKeys = new HashMap<>();
+        verificationKeys.put(jwtKeyId, signingKey);
+        for (String entry : previousKeys.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            verificationKeys.putIfAbsent(entry.substring(0, separator).trim(),
+                    toKey(entry.substring(separator + 1).trim()));
+        }
+
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        String keyId = header.getKeyId();
+                        if (keyId == null) {
+                            return signingKey;
+                        }
+                        SecretKey key = verificationKeys.get(keyId);
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown JWT key id: " + keyId);
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        log.info("JWT signing key '{}' ready, {} verification keys", jwtKeyId, verificationKeys.size());
+    }
+
+    private static SecretKey toKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
     }
 
     public String generateToken(Authentication authentication) {
@@ -32,12 +102,22 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .header().keyId(jwtKeyId).and()
                 .subject(userDetails.getUsername())
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+
+        if (embedAuthorities) {
+            builder.claim(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .sorted()
+                            .collect(Collectors.toList()))
+                    .claim(AUTHORITY_VERSION_CLAIM,
+                            authorityVersionRegistry.currentVersion(userDetails.getUsername()));
+        }
+
+        String token = builder.signWith(signingKey).compact();
 
         log.debug("JWT token generated for user: {}", userDetails.getUsername());
         return token;
@@ -48,29 +128,59 @@ public class JwtTokenProvider {
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
         return Jwts.builder()
+                .header().keyId(jwtKeyId).and()
                 .subject(username)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public String getUsernameFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
+        return parser.parseSignedClaims(token)
                 .getPayload()
                 .getSubject();
     }
 
+    /**
+     * Build the principal from authorities embedded in the token.
+     *
+     * @return null when the token has no embedded authorities or they are no
+     *         longer current, in which case the caller loads the user
+     */
+    public UserDetails getEmbeddedUser(Claims claims) {
+        if (!embedAuthorities) {
+            return null;
+        }
+        Object authorities = claims.get(AUTHORITIES_CLAIM);
+        Object version = claims.get(AUTHORITY_VERSION_CLAIM);
+        if (!(authorities instanceof List<?> names) || !(version instanceof Number number)) {
+            return null;
+        }
+        if (!authorityVersionRegistry.isCurrent(claims.getSubject(), number.longValue())) {
+            return null;
+        }
+
+        return new org.springframework.security.core.userdetails.User(
+                claims.getSubject(),
+                "",
+                names.stream()
+                        .map(name -> new SimpleGrantedAuthority(String.valueOf(name)))
+                        .collect(Collectors.toList()));
+    }
+
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    /**
+     * Verify the token and return its claims in a single parse.
+     *
+     * @return the claims, or null if the token is expired, malformed or unsupported
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.warn("JWT token expired: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -80,6 +190,6 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException e) {
             log.warn("JWT token compact of handler are invalid: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 }
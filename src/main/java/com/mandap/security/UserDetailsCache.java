@@ -0,0 +1,109 @@
+package com.mandap.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited cache of authenticated principals keyed by username,
+ * so JWT requests do not reload the user, roles and permissions every time.
+ * Entries expire after the TTL; user and role changes evict them directly.
+ * Evictions inside a transaction are repeated after commit so a request
+ * running concurrently cannot re-cache the old authorities. Every eviction
+ * also bumps a generation counter, and a load that overlapped one is not
+ * kept, so a load started before the change commits cannot outlive it.
+ */
+@Slf4j
+@Component
+public class UserDetailsCache {
+
+    @Value("${app.security.user-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.security.user-cache.max-size:1000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        if (ttlMs <= 0 || maxSize <= 0) {
+            return loader.apply(username);
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.userDetails;
+        }
+
+        long loadedAt = generation.get();
+        UserDetails userDetails = loader.apply(username);
+        if (generation.get() != loadedAt) {
+            return userDetails;
+        }
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+        Entry loaded = new Entry(userDetails, now + ttlMs);
+        entries.put(username, loaded);
+        // An eviction bumps the generation before removing, so one that ran
+        // since the check above either removed this entry or is undone here
+        if (generation.get() != loadedAt) {
+            entries.remove(username, loaded);
+        }
+        return userDetails;
+    }
+
+    public void evict(String username) {
+        Runnable evict = () -> {
+            generation.incrementAndGet();
+            entries.remove(username);
+        };
+        evict.run();
+        afterCommit(evict);
+        log.debug("User details cache evicted: username={}", username);
+    }
+
+    public void evictAll() {
+        Runnable clear = () -> {
+            generation.incrementAndGet();
+            entries.clear();
+        };
+        clear.run();
+        afterCommit(clear);
+        log.debug("User details cache cleared");
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        // Still full: drop the entries closest to expiry
+        while (entries.size() >= maxSize) {
+            entries.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().expiresAt, b.getValue().expiresAt))
+                    .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private record Entry(UserDetails userDetails, long expiresAt) {
+    }
+}
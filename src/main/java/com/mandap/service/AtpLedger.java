@@ -0,0 +1,331 @@
+package com.mandap.service;
+
+import com.mandap.dto.AtpDriftDTO;
+import com.mandap.entity.RentalOrder;
+import com.mandap.entity.RentalOrderItem;
+import com.mandap.repository.InventoryItemRepository;
+import com.mandap.repository.RentalOrderItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory available-to-promise (ATP) ledger.
+ * Keeps the committed quantity (Booked - Returned over all active orders) per
+ * inventory item so booking checks against total stock are O(1) per line.
+ * Reservations are applied immediately and undone if the surrounding
+ * transaction rolls back. When disabled, callers fall back to the batched
+ * committed-quantity query and all ledger mutations are no-ops.
+ * <p>
+ * A rebuild holds back new reservations and waits for transactions that
+ * already changed the ledger to finish, so the database totals it reads
+ * include them; the rebuilt map then replaces the old one in one step.
+ * <p>
+ * The ledger lives in one JVM and only sees bookings made through it, so it
+ * is only correct with a single app instance. When more than one instance
+ * shares the database, set {@code app.inventory.atp-ledger.enabled=false}:
+ * bookings then lock the inventory rows and check the batched query instead.
+ */
+@Slf4j
+@Service
+public class AtpLedger {
+
+    @Autowired
+    private RentalOrderItemRepository rentalOrderItemRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Value("${app.inventory.atp-ledger.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.inventory.atp-ledger.rebuild-wait-ms:30000}")
+    private long rebuildWaitMs;
+
+    private volatile ConcurrentHashMap<Long, Integer> committed = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    /** Guards rebuilding and inFlight; mutators wait on it while a rebuild runs. */
+    private final Object gate = new Object();
+
+    private boolean rebuilding;
+
+    /** Open transactions (or running calls outside one) that changed the ledger. */
+    private int inFlight;
+
+    /**
+     * Rebuild the ledger from the database totals.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            log.info("ATP ledger disabled, bookings use the batched committed-quantity query");
+            return;
+        }
+        // A caller whose own transaction changed the ledger cannot be waited for
+        int own = TransactionSynchronizationManager.hasResource(gate) ? 1 : 0;
+        synchronized (gate) {
+            rebuilding = true;
+            long deadline = System.currentTimeMillis() + rebuildWaitMs;
+            try {
+                while (inFlight > own) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        rebuilding = false;
+                        gate.notifyAll();
+                        throw new RuntimeException("ATP ledger rebuild timed out waiting for " + (inFlight - own)
+                                + " bookings in progress");
+                    }
+                    gate.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rebuilding = false;
+                gate.notifyAll();
+                throw new RuntimeException("Interrupted while rebuilding ATP ledger", e);
+            }
+        }
+        try {
+            ConcurrentHashMap<Long, Integer> totals = new ConcurrentHashMap<>(loadDatabaseCommitted());
+            committed = totals;
+            loaded = true;
+            log.info("ATP ledger rebuilt for {} inventory items", totals.size());
+        } finally {
+            synchronized (gate) {
+                rebuilding = false;
+                gate.notifyAll();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Committed quantity for an inventory item across all active orders.
+     */
+    public int getCommitted(Long inventoryItemId) {
+        ensureLoaded();
+        return committed.getOrDefault(inventoryItemId, 0);
+    }
+
+    /**
+     * Reserve additional quantity for an item if total stock allows it.
+     * Negative quantities always succeed (they release stock).
+     *
+     * @return false if the reservation would exceed total stock
+     */
+    public boolean tryReserve(Long inventoryItemId, int qty, int totalStock) {
+        if (!enabled) {
+            return true;
+        }
+        ensureLoaded();
+        if (qty <= 0) {
+            adjust(inventoryItemId, qty);
+            return true;
+        }
+
+        boolean[] reserved = new boolean[1];
+        Runnable done = enter();
+        try {
+            ConcurrentHashMap<Long, Integer> ledger = committed;
+            ledger.compute(inventoryItemId, (id, current) -> {
+                int value = current != null ? current : 0;
+                if (value + qty > totalStock) {
+                    return current;
+                }
+                reserved[0] = true;
+                return value + qty;
+            });
+            if (reserved[0]) {
+                compensateOnRollback(ledger, inventoryItemId, qty);
+            }
+        } finally {
+            done.run();
+        }
+        return reserved[0];
+    }
+
+    /**
+     * Release quantity for an item (e.g. items returned or removed from an order).
+     */
+    public void release(Long inventoryItemId, int qty) {
+        if (!enabled) {
+            return;
+        }
+        ensureLoaded();
+        adjust(inventoryItemId, -qty);
+    }
+
+    /**
+     * Release everything an order still holds (used on cancel and delete).
+     */
+    public void releaseOrder(RentalOrder order) {
+        for (RentalOrderItem item : order.getItems()) {
+            release(item.getInventoryItem().getId(), heldQty(item));
+        }
+    }
+
+    /**
+     * Re-commit everything an order holds (used when a closed order becomes
+     * active again).
+     */
+    public void commitOrder(RentalOrder order) {
+        if (!enabled) {
+            return;
+        }
+        ensureLoaded();
+        for (RentalOrderItem item : order.getItems()) {
+            adjust(item.getInventoryItem().getId(), heldQty(item));
+        }
+    }
+
+    /**
+     * Compare the ledger with the database and report items that drifted.
+     */
+    @Transactional(readOnly = true)
+    public List<AtpDriftDTO> reconcile() {
+        if (!enabled) {
+            return new ArrayList<>();
+        }
+        ensureLoaded();
+        Map<Long, Integer> database = loadDatabaseCommitted();
+
+        Set<Long> itemIds = new HashSet<>(database.keySet());
+        itemIds.addAll(committed.keySet());
+
+        Map<Long, String> names = new HashMap<>();
+        inventoryItemRepository.findAllById(itemIds)
+                .forEach(item -> names.put(item.getId(), item.getNameEnglish()));
+
+        List<AtpDriftDTO> drifts = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            int ledgerQty = committed.getOrDefault(itemId, 0);
+            int databaseQty = database.getOrDefault(itemId, 0);
+            if (ledgerQty != databaseQty) {
+                drifts.add(AtpDriftDTO.builder()
+                        .inventoryItemId(itemId)
+                        .itemNameEnglish(names.get(itemId))
+                        .ledgerCommitted(ledgerQty)
+                        .databaseCommitted(databaseQty)
+                        .drift(ledgerQty - databaseQty)
+                        .build());
+            }
+        }
+
+        if (!drifts.isEmpty()) {
+            log.warn("ATP ledger drift detected for {} inventory items", drifts.size());
+        }
+        return drifts;
+    }
+
+    private Map<Long, Integer> loadDatabaseCommitted() {
+        Map<Long, Integer> totals = new HashMap<>();
+        for (Object[] row : rentalOrderItemRepository.getInventoryTotals()) {
+            int booked = ((Number) row[1]).intValue();
+            int returned = ((Number) row[3]).intValue();
+            totals.put((Long) row[0], booked - returned);
+        }
+        return totals;
+    }
+
+    private void ensureLoaded() {
+        if (enabled && !loaded) {
+            rebuild();
+        }
+    }
+
+    private void adjust(Long inventoryItemId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        Runnable done = enter();
+        try {
+            ConcurrentHashMap<Long, Integer> ledger = committed;
+            ledger.merge(inventoryItemId, delta, Integer::sum);
+            compensateOnRollback(ledger, inventoryItemId, delta);
+        } finally {
+            done.run();
+        }
+    }
+
+    /**
+     * Wait out a running rebuild and count the caller as in flight: until its
+     * transaction completes, or until the returned callback runs when there
+     * is no transaction. A transaction already counted passes straight through.
+     */
+    private Runnable enter() {
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        if (transactional && TransactionSynchronizationManager.hasResource(gate)) {
+            return () -> {
+            };
+        }
+        synchronized (gate) {
+            try {
+                while (rebuilding) {
+                    gate.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for ATP ledger rebuild", e);
+            }
+            inFlight++;
+        }
+        if (!transactional) {
+            return this::leave;
+        }
+        TransactionSynchronizationManager.bindResource(gate, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(gate);
+                leave();
+            }
+        });
+        return () -> {
+        };
+    }
+
+    private void leave() {
+        synchronized (gate) {
+            inFlight--;
+            gate.notifyAll();
+        }
+    }
+
+    // Undo on the ledger that was changed, so nothing lands on a rebuilt one
+    private void compensateOnRollback(ConcurrentHashMap<Long, Integer> ledger, Long inventoryItemId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    ledger.merge(inventoryItemId, -delta, Integer::sum);
+                }
+            }
+        });
+    }
+
+    private static int heldQty(RentalOrderItem item) {
+        return item.getBookedQty() - (item.getReturnedQty() != null ? item.getReturnedQty() : 0);
+    }
+}
@@ -0,0 +1,372 @@
+package com.mandap.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mandap.dto.AuditCompactionDTO;
+import com.mandap.entity.InventoryItem;
+import com.mandap.entity.RentalOrder;
+import com.mandap.entity.RentalOrderItem;
+import com.mandap.repository.AuditRevisionRepository;
+import com.mandap.repository.BillRepository;
+import com.mandap.repository.CustomerRepository;
+import com.mandap.repository.InventoryItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the rental order audit tables from growing without limit.
+ *
+ * <p>Compaction collapses each order's revisions older than the horizon into
+ * one checkpoint: the last revision before the horizon is kept, together
+ * with the item rows it is reconstructed from, and everything earlier is
+ * moved gzip-compressed into audit_archive. Envers stores full rows, so the
+ * kept revisions still read exactly as before; the audit history just starts
+ * at the checkpoint. The archived revisions can be read back on demand
+ * ({@link #rentalOrderRevisions}) without writing to the audit tables.
+ */
+@Slf4j
+@Service
+public class AuditArchiveService {
+
+    private static final int ORDERS_PER_TRANSACTION = 100;
+
+    // Envers revtype for deleted rows
+    private static final int REVTYPE_DELETE = 2;
+
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private static final String ORDER_TABLE = "rental_orders_aud";
+    private static final String ITEM_TABLE = "rental_order_items_aud";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Value("${app.audit.compaction.min-horizon-days:30}")
+    private int minHorizonDays;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AuditArchiveService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** An archived revision of a rental order, rebuilt as a detached entity. */
+    public record ArchivedRevision(int revision, LocalDateTime date, String changedBy, boolean insert,
+            RentalOrder state) {
+    }
+
+    /**
+     * Compact every rental order with more than one revision before the
+     * horizon (midnight horizonDays ago, at least
+     * app.audit.compaction.min-horizon-days). Runs in short transactions of
+     * {@value #ORDERS_PER_TRANSACTION} orders so the audit tables are not
+     * locked for the whole run.
+     */
+    public AuditCompactionDTO compactRentalOrders(int horizonDays) {
+        if (horizonDays < minHorizonDays) {
+            throw new RuntimeException("Audit compaction horizon must be at least " + minHorizonDays + " days");
+        }
+        LocalDateTime horizon = LocalDate.now().minusDays(horizonDays).atStartOfDay();
+        long start = System.currentTimeMillis();
+        long horizonMillis = horizon.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // [orderId, checkpointRev]
+        List<long[]> candidates = jdbcTemplate.query(
+                "SELECT a.id, MAX(a.rev) FROM " + ORDER_TABLE + " a JOIN revinfo r ON r.id = a.rev "
+                        + "WHERE r.timestamp < ? GROUP BY a.id HAVING COUNT(*) > 1 ORDER BY a.id",
+                (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2) }, horizonMillis);
+
+        int[] totals = new int[3];
+        for (int from = 0; from < candidates.size(); from += ORDERS_PER_TRANSACTION) {
+            List<long[]> chunk = candidates.subList(from, Math.min(from + ORDERS_PER_TRANSACTION, candidates.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                for (long[] candidate : chunk) {
+                    int[] archived = compactOrder(candidate[0], (int) candidate[1]);
+                    if (archived[0] + archived[1] > 0) {
+                        totals[0]++;
+                        totals[1] += archived[0];
+                        totals[2] += archived[1];
+                    }
+                }
+            });
+        }
+
+        AuditCompactionDTO result = AuditCompactionDTO.builder()
+                .horizon(horizon)
+                .ordersCompacted(totals[0])
+                .orderRowsArchived(totals[1])
+                .itemRowsArchived(totals[2])
+                .elapsedMs(System.currentTimeMillis() - start)
+                .build();
+        log.info("Rental order audit compacted: {}", result);
+        return result;
+    }
+
+    /**
+     * An order's archived revisions, oldest first. Each state is rebuilt
+     * from the archived order row and, per line, the latest item row at or
+     * before that revision, taken from the archive or from the checkpoint
+     * rows still in the audit table. Who and when come from the revinfo rows
+     * stored with the archive. Nothing is written.
+     */
+    public List<ArchivedRevision> rentalOrderRevisions(Long orderId) {
+        List<Map<String, Object>> orderRows = new ArrayList<>();
+        List<Map<String, Object>> itemRows = new ArrayList<>();
+        Map<Integer, Map<String, Object>> revinfo = new HashMap<>();
+        for (byte[] archive : jdbcTemplate.queryForList("SELECT payload FROM audit_archive "
+                + "WHERE entity_type = ? AND entity_id = ? ORDER BY id", byte[].class,
+                AuditRevisionRepository.RENTAL_ORDER, orderId)) {
+            Map<String, List<Map<String, Object>>> payload = decompress(archive);
+            orderRows.addAll(payload.getOrDefault(ORDER_TABLE, List.of()));
+            itemRows.addAll(payload.getOrDefault(ITEM_TABLE, List.of()));
+            payload.getOrDefault("revinfo", List.of()).forEach(row -> revinfo.put(intValue(row, "id"), row));
+        }
+        if (orderRows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        orderRows.sort(Comparator.comparingInt(row -> intValue(row, "rev")));
+        int lastArchivedRev = intValue(orderRows.get(orderRows.size() - 1), "rev");
+
+        // Lines unchanged since before the checkpoint only have their kept row
+        jdbcTemplate.queryForList("SELECT * FROM " + ITEM_TABLE + " WHERE rental_order_id = ? AND rev <= ?",
+                orderId, lastArchivedRev).forEach(row -> itemRows.add(plainRow(row)));
+        itemRows.sort(Comparator.comparingInt(row -> intValue(row, "rev")));
+
+        Set<Long> inventoryItemIds = new HashSet<>();
+        itemRows.forEach(row -> {
+            if (row.get("inventory_item_id") != null) {
+                inventoryItemIds.add(longValue(row, "inventory_item_id"));
+            }
+        });
+        Map<Long, InventoryItem> inventoryItems = new HashMap<>();
+        inventoryItemRepository.findAllById(inventoryItemIds).forEach(item -> inventoryItems.put(item.getId(), item));
+
+        List<ArchivedRevision> revisions = new ArrayList<>();
+        Map<Long, Map<String, Object>> lines = new LinkedHashMap<>();
+        int nextItemRow = 0;
+        for (Map<String, Object> orderRow : orderRows) {
+            int rev = intValue(orderRow, "rev");
+            for (; nextItemRow < itemRows.size() && intValue(itemRows.get(nextItemRow), "rev") <= rev; nextItemRow++) {
+                Map<String, Object> itemRow = itemRows.get(nextItemRow);
+                if (intValue(itemRow, "revtype") == REVTYPE_DELETE) {
+                    lines.remove(longValue(itemRow, "id"));
+                } else {
+                    lines.put(longValue(itemRow, "id"), itemRow);
+                }
+            }
+
+            RentalOrder state = toRentalOrder(orderRow);
+            for (Map<String, Object> line : lines.values()) {
+                state.getItems().add(toRentalOrderItem(line, state, inventoryItems));
+            }
+            Map<String, Object> revision = revinfo.getOrDefault(rev, Map.of());
+            revisions.add(new ArchivedRevision(rev,
+                    revision.get("timestamp") != null
+                            ? LocalDateTime.ofInstant(Instant.ofEpochMilli(longValue(revision, "timestamp")),
+                                    ZoneId.systemDefault())
+                            : null,
+                    (String) revision.get("username"),
+                    intValue(orderRow, "revtype") == 0,
+                    state));
+        }
+        return revisions;
+    }
+
+    // Returns [order rows archived, item rows archived]
+    private int[] compactOrder(long orderId, int checkpointRev) {
+        List<Map<String, Object>> orderRows = jdbcTemplate.queryForList(
+                "SELECT * FROM " + ORDER_TABLE + " WHERE id = ? AND rev < ? ORDER BY rev", orderId, checkpointRev);
+
+        // Deleted item rows carry no rental_order_id, so select by item id
+        List<Map<String, Object>> itemRows = jdbcTemplate.queryForList(
+                "SELECT * FROM " + ITEM_TABLE + " WHERE id IN (SELECT DISTINCT i.id FROM " + ITEM_TABLE
+                        + " i WHERE i.rental_order_id = ?) AND rev <= ? ORDER BY id, rev",
+                orderId, checkpointRev);
+
+        // The checkpoint is rebuilt from each line's latest row at or before
+        // it; those rows stay unless the line was deleted by then
+        Map<Long, Map<String, Object>> latestPerItem = new HashMap<>();
+        for (Map<String, Object> row : itemRows) {
+            latestPerItem.put(((Number) row.get("id")).longValue(), row);
+        }
+        List<Map<String, Object>> archivedItemRows = itemRows.stream()
+                .filter(row -> {
+                    Map<String, Object> latest = latestPerItem.get(((Number) row.get("id")).longValue());
+                    return row != latest || ((Number) row.get("revtype")).intValue() == REVTYPE_DELETE;
+                })
+                .collect(Collectors.toList());
+
+        if (orderRows.isEmpty() && archivedItemRows.isEmpty()) {
+            return new int[] { 0, 0 };
+        }
+
+        TreeSet<Integer> revisions = new TreeSet<>();
+        orderRows.forEach(row -> revisions.add(((Number) row.get("rev")).intValue()));
+        archivedItemRows.forEach(row -> revisions.add(((Number) row.get("rev")).intValue()));
+
+        Map<String, List<Map<String, Object>>> payload = new LinkedHashMap<>();
+        // Who and when, read back with the rows (revinfo itself is shared and stays)
+        payload.put("revinfo", jdbcTemplate.queryForList(
+                "SELECT * FROM revinfo WHERE id IN (" + placeholders(revisions.size()) + ") ORDER BY id",
+                revisions.toArray()));
+        payload.put(ORDER_TABLE, orderRows);
+        payload.put(ITEM_TABLE, archivedItemRows);
+
+        jdbcTemplate.update("INSERT INTO audit_archive (entity_type, entity_id, checkpoint_rev, revision_count, "
+                + "row_count, archived_at, payload) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                AuditRevisionRepository.RENTAL_ORDER, orderId, checkpointRev, revisions.size(),
+                orderRows.size() + archivedItemRows.size(), Timestamp.valueOf(LocalDateTime.now()),
+                compress(payload));
+
+        jdbcTemplate.update("DELETE FROM " + ORDER_TABLE + " WHERE id = ? AND rev < ?", orderId, checkpointRev);
+        jdbcTemplate.batchUpdate("DELETE FROM " + ITEM_TABLE + " WHERE id = ? AND rev = ?",
+                archivedItemRows.stream()
+                        .map(row -> new Object[] { row.get("id"), row.get("rev") })
+                        .collect(Collectors.toList()));
+        return new int[] { orderRows.size(), archivedItemRows.size() };
+    }
+
+    private RentalOrder toRentalOrder(Map<String, Object> row) {
+        RentalOrder order = RentalOrder.builder()
+                .id(longValue(row, "id"))
+                .orderNumber((String) row.get("order_number"))
+                .customer(row.get("customer_id") != null
+                        ? customerRepository.getReferenceById(longValue(row, "customer_id"))
+                        : null)
+                .orderDate(dateValue(row, "order_date"))
+                .dispatchDate(dateValue(row, "dispatch_date"))
+                .expectedReturnDate(dateValue(row, "expected_return_date"))
+                .actualReturnDate(dateValue(row, "actual_return_date"))
+                .status(row.get("status") != null
+                        ? RentalOrder.RentalOrderStatus.valueOf((String) row.get("status"))
+                        : null)
+                .bill(row.get("bill_id") != null ? billRepository.getReferenceById(longValue(row, "bill_id")) : null)
+                .billOutOfSync(Boolean.TRUE.equals(row.get("bill_out_of_sync")))
+                .remarks((String) row.get("remarks"))
+                .build();
+        order.setItems(new ArrayList<>());
+        return order;
+    }
+
+    private static RentalOrderItem toRentalOrderItem(Map<String, Object> row, RentalOrder order,
+            Map<Long, InventoryItem> inventoryItems) {
+        return RentalOrderItem.builder()
+                .id(longValue(row, "id"))
+                .rentalOrder(order)
+                .inventoryItem(inventoryItems.get(longValue(row, "inventory_item_id")))
+                .bookedQty(intOrNull(row, "booked_qty"))
+                .dispatchedQty(intOrNull(row, "dispatched_qty"))
+                .returnedQty(intOrNull(row, "returned_qty"))
+                .dispatchDate(dateValue(row, "dispatch_date"))
+                .returnDate(dateValue(row, "return_date"))
+                .build();
+    }
+
+    private static int intValue(Map<String, Object> row, String column) {
+        return ((Number) row.get(column)).intValue();
+    }
+
+    private static long longValue(Map<String, Object> row, String column) {
+        return ((Number) row.get(column)).longValue();
+    }
+
+    private static Integer intOrNull(Map<String, Object> row, String column) {
+        return row.get(column) != null ? intValue(row, column) : null;
+    }
+
+    private static LocalDate dateValue(Map<String, Object> row, String column) {
+        return row.get(column) != null ? LocalDate.parse((String) row.get(column)) : null;
+    }
+
+    private byte[] compress(Map<String, List<Map<String, Object>>> payload) {
+        // Dates are stored as SQL literals so they read back without type information
+        Map<String, List<Map<String, Object>>> plain = new LinkedHashMap<>();
+        payload.forEach((table, rows) -> plain.put(table, rows.stream()
+                .map(AuditArchiveService::plainRow)
+                .collect(Collectors.toList())));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, plain);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Map<String, List<Map<String, Object>>> decompress(byte[] payload) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(gzip, new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Object> plainRow(Map<String, Object> row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        row.forEach((column, value) -> values.put(column.toLowerCase(), plainValue(value)));
+        return values;
+    }
+
+    private static Object plainValue(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return SQL_DATE_TIME.format(timestamp.toLocalDateTime());
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return SQL_DATE_TIME.format(dateTime);
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().toString();
+        }
+        if (value instanceof LocalDate) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
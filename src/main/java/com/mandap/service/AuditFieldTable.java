@@ -0,0 +1,146 @@
+package com.mandap.service;
+
+import com.mandap.dto.FieldChangeDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Registered table of audited fields for one entity type: a display label
+ * and an accessor returning the value as shown in the audit log. All audit
+ * histories diff entity states through these tables, so adding a field to
+ * the log is one line and no reflection happens per revision.
+ */
+final class AuditFieldTable<T> {
+
+    private final String[] labels;
+    private final Function<T, Object>[] accessors;
+    private final boolean[] inSnapshot;
+
+    @SuppressWarnings("unchecked")
+    private AuditFieldTable(List<String> labels, List<Function<T, Object>> accessors, List<Boolean> inSnapshot) {
+        this.labels = labels.toArray(new String[0]);
+        this.accessors = accessors.toArray(new Function[0]);
+        this.inSnapshot = new boolean[labels.size()];
+        for (int i = 0; i < this.inSnapshot.length; i++) {
+            this.inSnapshot[i] = inSnapshot.get(i);
+        }
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Record every field that differs between two states. Labels get the
+     * suffix appended when given (e.g. "Disp Qty: " + item name).
+     */
+    void diff(T oldState, T newState, String labelSuffix, Map<String, ? super FieldChangeDTO> changes) {
+        for (int i = 0; i < labels.length; i++) {
+            Object oldValue = accessors[i].apply(oldState);
+            Object newValue = accessors[i].apply(newState);
+            if (!Objects.equals(oldValue, newValue)) {
+                changes.put(label(i, labelSuffix), new FieldChangeDTO(oldValue, newValue));
+            }
+        }
+    }
+
+    /**
+     * Record the snapshot fields of a state as if set from nothing (used
+     * when the first tracked revision is an update).
+     */
+    void snapshot(T state, Map<String, ? super FieldChangeDTO> changes) {
+        for (int i = 0; i < labels.length; i++) {
+            if (inSnapshot[i]) {
+                changes.put(labels[i], new FieldChangeDTO(null, accessors[i].apply(state)));
+            }
+        }
+    }
+
+    /**
+     * Walks a history oldest first, keeping the previous state's extracted
+     * values so each revision's fields are read once and the value buffers
+     * are reused from one revision to the next.
+     */
+    Walker walker() {
+        return new Walker();
+    }
+
+    int size() {
+        return labels.length;
+    }
+
+    private String label(int field, String labelSuffix) {
+        return labelSuffix == null ? labels[field] : labels[field] + ": " + labelSuffix;
+    }
+
+    final class Walker {
+        private Object[] previous = new Object[labels.length];
+        private Object[] current = new Object[labels.length];
+        private boolean hasPrevious;
+
+        /** Start from a known state (the revision before the first one walked). */
+        void start(T state) {
+            hasPrevious = state != null;
+            if (hasPrevious) {
+                extract(state, previous);
+            }
+        }
+
+        boolean hasPrevious() {
+            return hasPrevious;
+        }
+
+        /** Record changes from the previous state to this one, then make it the previous state. */
+        void next(T state, Map<String, ? super FieldChangeDTO> changes) {
+            extract(state, current);
+            if (hasPrevious) {
+                for (int i = 0; i < labels.length; i++) {
+                    if (!Objects.equals(previous[i], current[i])) {
+                        changes.put(labels[i], new FieldChangeDTO(previous[i], current[i]));
+                    }
+                }
+            }
+            Object[] swap = previous;
+            previous = current;
+            current = swap;
+            hasPrevious = true;
+        }
+
+        private void extract(T state, Object[] values) {
+            for (int i = 0; i < labels.length; i++) {
+                values[i] = accessors[i].apply(state);
+            }
+        }
+    }
+
+    static final class Builder<T> {
+        private final List<String> labels = new ArrayList<>();
+        private final List<Function<T, Object>> accessors = new ArrayList<>();
+        private final List<Boolean> inSnapshot = new ArrayList<>();
+
+        /** Field shown in diffs and in first-revision snapshots. */
+        Builder<T> field(String label, Function<T, Object> accessor) {
+            return add(label, accessor, true);
+        }
+
+        /** Field shown in diffs only. */
+        Builder<T> diffOnly(String label, Function<T, Object> accessor) {
+            return add(label, accessor, false);
+        }
+
+        private Builder<T> add(String label, Function<T, Object> accessor, boolean snapshot) {
+            labels.add(label);
+            accessors.add(accessor);
+            inSnapshot.add(snapshot);
+            return this;
+        }
+
+        AuditFieldTable<T> build() {
+            return new AuditFieldTable<>(labels, accessors, inSnapshot);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mandap.service;
+
+import com.mandap.entity.Customer;
+import com.mandap.entity.InventoryItem;
+import com.mandap.entity.RentalOrder;
+import com.mandap.entity.RentalOrderItem;
+
+/**
+ * Audited fields per entity, with the labels shown in the audit history.
+ */
+final class AuditFields {
+
+    static final AuditFieldTable<Customer> CUSTOMER = AuditFieldTable.<Customer>builder()
+            .field("Name", Customer::getName)
+            .field("Mobile", Customer::getMobile)
+            .field("Address", Customer::getAddress)
+            .field("Alternate Contact", Customer::getAlternateContact)
+            .field("Active Status", c -> activeStatus(c.getActive()))
+            .field("Pal Numbers", Customer::getPalNumbers)
+            .diffOnly("Notes", Customer::getNotes)
+            .build();
+
+    static final AuditFieldTable<InventoryItem> INVENTORY_ITEM = AuditFieldTable.<InventoryItem>builder()
+            .field("Name (Gujarati)", InventoryItem::getNameGujarati)
+            .field("Name (English)", InventoryItem::getNameEnglish)
+            .field("Default Rate", InventoryItem::getDefaultRate)
+            .field("Category", i -> i.getCategory() != null ? i.getCategory().name() : null)
+            .field("Total Stock", InventoryItem::getTotalStock)
+            .field("Active Status", i -> activeStatus(i.getActive()))
+            .build();
+
+    static final AuditFieldTable<RentalOrder> RENTAL_ORDER = AuditFieldTable.<RentalOrder>builder()
+            .field("Order Date", RentalOrder::getOrderDate)
+            .field("Expected Return", RentalOrder::getExpectedReturnDate)
+            .field("Status", o -> o.getStatus() != null ? o.getStatus().name() : null)
+            .field("Remarks", RentalOrder::getRemarks)
+            .build();
+
+    // Labelled per line as "<label>: <item name>"
+    static final AuditFieldTable<RentalOrderItem> RENTAL_ORDER_ITEM = AuditFieldTable.<RentalOrderItem>builder()
+            .field("Qty Changed", RentalOrderItem::getBookedQty)
+            .field("Disp Qty", RentalOrderItem::getDispatchedQty)
+            .field("Ret Qty", RentalOrderItem::getReturnedQty)
+            .build();
+
+    private AuditFields() {
+    }
+
+    private static String activeStatus(Boolean active) {
+        return active == null ? null : active ? "Active" : "Inactive";
+    }
+}
@@ -0,0 +1,89 @@
+package com.mandap.service;
+
+import com.mandap.dto.PageDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.history.Revision;
+import org.springframework.data.history.RevisionSort;
+import org.springframework.data.repository.history.RevisionRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One newest-first page of an entity's Envers revisions, plus the revision
+ * just before the page so the oldest entry can still be diffed. Only these
+ * revisions are loaded, however long the history is.
+ */
+final class AuditPage<T> {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final Page<Revision<Integer, T>> page;
+    private final T priorState;
+
+    private AuditPage(Page<Revision<Integer, T>> page, T priorState) {
+        this.page = page;
+        this.priorState = priorState;
+    }
+
+    static <T> AuditPage<T> load(RevisionRepository<T, Long, Integer> repository, Long id, Integer page,
+            Integer size) {
+        int pageIndex = page != null && page > 0 ? page : 0;
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        Page<Revision<Integer, T>> revisions = repository.findRevisions(id,
+                PageRequest.of(pageIndex, pageSize, RevisionSort.desc()));
+
+        T priorState = null;
+        if (revisions.hasNext()) {
+            // Page index (p + 1) * n of size 1 is the single revision after this page
+            List<Revision<Integer, T>> prior = repository.findRevisions(id,
+                    PageRequest.of((pageIndex + 1) * pageSize, 1, RevisionSort.desc())).getContent();
+            if (!prior.isEmpty()) {
+                priorState = prior.get(0).getEntity();
+            }
+        }
+        return new AuditPage<>(revisions, priorState);
+    }
+
+    /** Revisions of this page, oldest first, for diffing in order. */
+    List<Revision<Integer, T>> oldestFirst() {
+        List<Revision<Integer, T>> revisions = new ArrayList<>(page.getContent());
+        Collections.reverse(revisions);
+        return revisions;
+    }
+
+    /** Entity state before the oldest revision of this page; null if that is the first revision. */
+    T priorState() {
+        return priorState;
+    }
+
+    int pageIndex() {
+        return page.getNumber();
+    }
+
+    int pageSize() {
+        return page.getSize();
+    }
+
+    /** Number of revisions in the whole history. */
+    long totalElements() {
+        return page.getTotalElements();
+    }
+
+    /** Wrap entries built from {@link #oldestFirst()}; they are returned newest first. */
+    <D> PageDTO<D> toDTO(List<D> oldestFirstItems) {
+        List<D> items = new ArrayList<>(oldestFirstItems);
+        Collections.reverse(items);
+        return PageDTO.<D>builder()
+                .items(items)
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .hasMore(page.hasNext())
+                .build();
+    }
+}
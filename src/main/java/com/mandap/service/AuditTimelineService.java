@@ -0,0 +1,109 @@
+package com.mandap.service;
+
+import com.mandap.dto.AuditTimelineChangeDTO;
+import com.mandap.dto.AuditTimelineEntryDTO;
+import com.mandap.dto.CursorPageDTO;
+import com.mandap.repository.AuditRevisionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Audit timeline across customers, inventory items and rental orders: who
+ * changed what, newest first, filtered by user, time range and entity type.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class AuditTimelineService {
+
+    private static final Set<String> ENTITY_TYPES = Set.of(AuditRevisionRepository.CUSTOMER,
+            AuditRevisionRepository.INVENTORY_ITEM, AuditRevisionRepository.RENTAL_ORDER);
+
+    @Autowired
+    private AuditRevisionRepository auditRevisionRepository;
+
+    /**
+     * Get one page of revisions using keyset pagination on (timestamp, id).
+     * The range is half-open: from inclusive, to exclusive.
+     */
+    public CursorPageDTO<AuditTimelineEntryDTO> getTimeline(String cursor, Integer size, String username,
+            LocalDateTime from, LocalDateTime to, String entityType) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.pageSize(size);
+        String type = entityType != null && !entityType.isBlank() ? entityType.trim().toUpperCase() : null;
+        if (type != null && !ENTITY_TYPES.contains(type)) {
+            throw new RuntimeException("Unknown audit entity type: " + entityType);
+        }
+        String user = username != null && !username.isBlank() ? username.trim() : null;
+
+        List<AuditRevisionRepository.RevisionView> revisions = auditRevisionRepository.findTimelinePage(
+                user, toTimestamp(from), toTimestamp(to), type,
+                after != null ? after.keyAsLong() : null,
+                after != null ? after.id().intValue() : null,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = revisions.size() > pageSize;
+        if (hasMore) {
+            revisions = revisions.subList(0, pageSize);
+        }
+
+        Map<Integer, AuditTimelineEntryDTO> entries = new LinkedHashMap<>();
+        for (AuditRevisionRepository.RevisionView revision : revisions) {
+            entries.put(revision.getRevisionNumber(), AuditTimelineEntryDTO.builder()
+                    .revisionNumber(revision.getRevisionNumber())
+                    .revisionDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(revision.getRevisionTimestamp()),
+                            ZoneId.systemDefault()))
+                    .changedBy(revision.getUsername())
+                    .changes(new ArrayList<>())
+                    .build());
+        }
+        if (!entries.isEmpty()) {
+            for (AuditRevisionRepository.ChangedEntityView changed : auditRevisionRepository
+                    .findChangedEntities(entries.keySet(), type)) {
+                entries.get(changed.getRevisionNumber()).getChanges().add(AuditTimelineChangeDTO.builder()
+                        .entityType(changed.getEntityType())
+                        .entityId(changed.getEntityId())
+                        .action(action(changed.getRevisionType()))
+                        .label(changed.getLabel())
+                        .build());
+            }
+        }
+
+        AuditRevisionRepository.RevisionView last = revisions.isEmpty() ? null : revisions.get(revisions.size() - 1);
+        return CursorPageDTO.<AuditTimelineEntryDTO>builder()
+                .items(new ArrayList<>(entries.values()))
+                .hasMore(hasMore)
+                .nextCursor(hasMore
+                        ? KeysetCursor.encode(last.getRevisionTimestamp(), last.getRevisionNumber().longValue())
+                        : null)
+                .build();
+    }
+
+    private static Long toTimestamp(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+    }
+
+    // Envers revtype: 0 = add, 1 = modify, 2 = delete
+    private static String action(Integer revisionType) {
+        if (revisionType == null) {
+            return null;
+        }
+        return switch (revisionType) {
+            case 0 -> "CREATE";
+            case 2 -> "DELETE";
+            default -> "UPDATE";
+        };
+    }
+}
@@ -2,16 +2,20 @@ package com.mandap.service;
 
 import com.mandap.dto.BillDTO;
 import com.mandap.dto.BillItemDTO;
+import com.mandap.dto.BillSummaryDTO;
+import com.mandap.dto.CursorPageDTO;
 import com.mandap.dto.PaymentDTO;
 import com.mandap.entity.*;
 import com.mandap.repository.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,13 +37,107 @@ public class BillService {
         @Autowired
         private PaymentRepository paymentRepository;
 
+        @Autowired
+        private BillItemRepository billItemRepository;
+
         @Autowired
         private RentalOrderRepository rentalOrderRepository;
 
-        public List<BillDTO> getAllBills() {
-                return billRepository.findAllWithDetails().stream()
-                                .map(this::toDTO)
-                                .collect(Collectors.toList());
+        @Autowired
+        private InventoryCatalogueCache inventoryCatalogueCache;
+
+        @Autowired
+        private AtpLedger atpLedger;
+
+        @Autowired
+        private NumberSequenceService numberSequenceService;
+
+        @Autowired
+        private SearchIndex searchIndex;
+
+        @Autowired
+        private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
+        public List<BillSummaryDTO> getAllBills() {
+                return toSummaries(billRepository.findAllHeaders());
+        }
+
+        /**
+         * Get one page of bills using keyset pagination on (createdAt, id).
+         * Newest first unless direction is "asc".
+         */
+        public CursorPageDTO<BillSummaryDTO> getBillsPage(String cursor, Integer size, String direction,
+                        Bill.PaymentStatus paymentStatus, Long customerId, String query) {
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                int pageSize = KeysetCursor.pageSize(size);
+                String search = query != null && !query.isBlank() ? query.trim() : null;
+                LocalDateTime afterCreatedAt = after != null ? after.keyAsDateTime() : null;
+                Long afterId = after != null ? after.id() : null;
+                PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+                List<Long> ids = KeysetCursor.isAscending(direction, false)
+                                ? billRepository.findPageIdsOldestFirst(paymentStatus, customerId, search,
+                                                afterCreatedAt, afterId, limit)
+                                : billRepository.findPageIdsNewestFirst(paymentStatus, customerId, search,
+                                                afterCreatedAt, afterId, limit);
+
+                boolean hasMore = ids.size() > pageSize;
+                if (hasMore) {
+                        ids = ids.subList(0, pageSize);
+                }
+
+                List<BillRepository.BillHeaderView> headers = findHeadersInOrder(ids);
+                BillRepository.BillHeaderView last = headers.isEmpty() ? null : headers.get(headers.size() - 1);
+                return CursorPageDTO.<BillSummaryDTO>builder()
+                                .items(toSummaries(headers))
+                                .hasMore(hasMore)
+                                .nextCursor(hasMore ? KeysetCursor.encode(last.getCreatedAt(), last.getId()) : null)
+                                .build();
+        }
+
+        /**
+         * Get one page of bills dated from (inclusive) to (exclusive), using
+         * keyset pagination on (billDate, id). Newest first unless direction
+         * is "asc".
+         */
+        public CursorPageDTO<BillSummaryDTO> getBillsByDateRange(LocalDate from, LocalDate to, String cursor,
+                        Integer size, String direction) {
+                if (!from.isBefore(to)) {
+                        throw new RuntimeException("Bill date range is empty: from " + from + " must be before to " + to);
+                }
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                int pageSize = KeysetCursor.pageSize(size);
+                LocalDate afterBillDate = after != null ? after.keyAsDate() : null;
+                Long afterId = after != null ? after.id() : null;
+                PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+                List<Long> ids = KeysetCursor.isAscending(direction, false)
+                                ? billRepository.findRangePageIdsOldestFirst(from, to, afterBillDate, afterId, limit)
+                                : billRepository.findRangePageIdsNewestFirst(from, to, afterBillDate, afterId, limit);
+
+                boolean hasMore = ids.size() > pageSize;
+                if (hasMore) {
+                        ids = ids.subList(0, pageSize);
+                }
+
+                List<BillRepository.BillHeaderView> headers = findHeadersInOrder(ids);
+                BillRepository.BillHeaderView last = headers.isEmpty() ? null : headers.get(headers.size() - 1);
+                return CursorPageDTO.<BillSummaryDTO>builder()
+                                .items(toSummaries(headers))
+                                .hasMore(hasMore)
+                                .nextCursor(hasMore ? KeysetCursor.encode(last.getBillDate(), last.getId()) : null)
+                                .build();
+        }
+
+        private List<BillRepository.BillHeaderView> findHeadersInOrder(List<Long> ids) {
+                List<BillRepository.BillHeaderView> headers = new ArrayList<>();
+                if (!ids.isEmpty()) {
+                        java.util.Map<Long, BillRepository.BillHeaderView> byId = billRepository
+                                        .findHeadersByIdIn(ids).stream()
+                                        .collect(Collectors.toMap(BillRepository.BillHeaderView::getId, h -> h));
+                        ids.stream().map(byId::get).filter(java.util.Objects::nonNull).forEach(headers::add);
+                }
+                return headers;
         }
 
         public BillDTO getBillById(Long id) {
@@ -54,22 +152,20 @@ public class BillService {
                 return toDTO(bill);
         }
 
-        public List<BillDTO> getBillsByCustomer(Long customerId) {
-                return billRepository.findByCustomerId(customerId).stream()
-                                .map(this::toDTO)
-                                .collect(Collectors.toList());
+        public List<BillSummaryDTO> getBillsByCustomer(Long customerId) {
+                return toSummaries(billRepository.findHeadersByCustomerId(customerId));
         }
 
-        public List<BillDTO> getBillsByYear(Integer year) {
-                return billRepository.findByYear(year).stream()
-                                .map(this::toDTO)
-                                .collect(Collectors.toList());
+        public List<BillSummaryDTO> getBillsByYear(Integer year) {
+                LocalDate from = LocalDate.of(year, 1, 1);
+                return toSummaries(billRepository.findHeadersByBillDateRange(from, from.plusYears(1)));
         }
 
-        public List<BillDTO> searchBills(String query) {
-                return billRepository.searchByCustomerNameOrBillNumber(query).stream()
-                                .map(this::toDTO)
-                                .collect(Collectors.toList());
+        public List<BillSummaryDTO> searchBills(String query) {
+                if (!searchIndex.isReady()) {
+                        return toSummaries(billRepository.searchHeaders(query));
+                }
+                return toSummaries(findHeadersInOrder(searchIndex.searchBills(query)));
         }
 
         public BillDTO createBill(BillDTO dto, Long userId) {
@@ -77,8 +173,7 @@ public class BillService {
                 Customer customer = customerRepository.findById(dto.getCustomerId())
                                 .orElseThrow(() -> new RuntimeException("Customer not found: " + dto.getCustomerId()));
 
-                List<Bill> existingBills = billRepository.findByCustomerId(customer.getId());
-                if (!existingBills.isEmpty()) {
+                if (billRepository.existsByCustomerId(customer.getId())) {
                         throw new RuntimeException("Customer already has a bill. Please edit the existing bill.");
                 }
 
@@ -149,6 +244,7 @@ public class BillService {
 
                 bill.calculateTotals();
                 bill = billRepository.save(bill);
+                eventPublisher.publishEvent(EntityChangedEvent.saved(bill));
                 log.info("Bill created: number={}, total={}, items={}", bill.getBillNumber(), bill.getTotalAmount(),
                                 bill.getItems().size());
 
@@ -338,11 +434,14 @@ public class BillService {
                         // If order was completed because of this bill, revert status
                         if (order.getStatus() == RentalOrder.RentalOrderStatus.COMPLETED) {
                                 order.setStatus(RentalOrder.RentalOrderStatus.RETURNED);
+                                atpLedger.commitOrder(order);
+                                inventoryCatalogueCache.orderChanged(order);
                         }
                         rentalOrderRepository.save(order);
                 });
 
                 billRepository.delete(bill);
+                eventPublisher.publishEvent(EntityChangedEvent.removed(bill));
                 log.info("Bill deleted successfully: number={}", bill.getBillNumber());
         }
 
@@ -416,9 +515,10 @@ public class BillService {
                 int year = LocalDate.now().getYear();
                 String prefix = "FS13-" + year + "-";
 
-                Integer maxNumber = billRepository.findMaxBillNumberForPrefix(prefix);
-                int nextNumber = (maxNumber != null ? maxNumber : 0) + 1;
-
+                long nextNumber = numberSequenceService.next(prefix, () -> {
+                        Integer maxNumber = billRepository.findMaxBillNumberForPrefix(prefix);
+                        return maxNumber != null ? maxNumber : 0;
+                });
                 return prefix + String.format("%03d", nextNumber);
         }
 
@@ -435,6 +535,89 @@ public class BillService {
                                 .build();
         }
 
+        /**
+         * Build list rows from bill headers with one grouped query each for line
+         * totals, payment totals, linked orders and PAL numbers.
+         */
+        private List<BillSummaryDTO> toSummaries(List<BillRepository.BillHeaderView> headers) {
+                if (headers.isEmpty()) {
+                        return new ArrayList<>();
+                }
+
+                java.util.Set<Long> billIds = new java.util.HashSet<>();
+                java.util.Set<Long> customerIds = new java.util.HashSet<>();
+                for (BillRepository.BillHeaderView header : headers) {
+                        billIds.add(header.getId());
+                        customerIds.add(header.getCustomerId());
+                }
+
+                java.util.Map<Long, BillItemRepository.BillLineTotalsView> lineTotals = billItemRepository
+                                .getLineTotals(billIds).stream()
+                                .collect(Collectors.toMap(BillItemRepository.BillLineTotalsView::getBillId, t -> t));
+                java.util.Map<Long, PaymentRepository.BillPaymentTotalsView> paymentTotals = paymentRepository
+                                .getPaymentTotals(billIds).stream()
+                                .collect(Collectors.toMap(PaymentRepository.BillPaymentTotalsView::getBillId, t -> t));
+
+                java.util.Map<Long, Long> orderIdByBill = new java.util.HashMap<>();
+                for (Object[] row : rentalOrderRepository.findOrderIdsByBillIds(billIds)) {
+                        orderIdByBill.put((Long) row[0], (Long) row[1]);
+                }
+
+                java.util.Map<Long, java.util.List<String>> palNumbersByCustomer = new java.util.HashMap<>();
+                for (Object[] row : customerRepository.findPalNumbersByCustomerIds(customerIds)) {
+                        palNumbersByCustomer.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+                }
+
+                return headers.stream()
+                                .map(header -> {
+                                        BillItemRepository.BillLineTotalsView lines = lineTotals.get(header.getId());
+                                        PaymentRepository.BillPaymentTotalsView payments = paymentTotals
+                                                        .get(header.getId());
+                                        java.util.List<String> palNumbers = palNumbersByCustomer
+                                                        .get(header.getCustomerId());
+                                        BigDecimal netPayable = header.getNetPayable() != null
+                                                        ? header.getNetPayable()
+                                                        : BigDecimal.ZERO;
+
+                                        return BillSummaryDTO.builder()
+                                                        .id(header.getId())
+                                                        .billNumber(header.getBillNumber())
+                                                        .customerId(header.getCustomerId())
+                                                        .customerName(header.getCustomerName())
+                                                        .customerMobile(header.getCustomerMobile())
+                                                        .palNumbers(palNumbers != null ? String.join(", ", palNumbers)
+                                                                        : "")
+                                                        .billType(header.getBillType() != null
+                                                                        ? header.getBillType().name()
+                                                                        : "INVOICE")
+                                                        .paymentStatus(header.getPaymentStatus() != null
+                                                                        ? header.getPaymentStatus().name()
+                                                                        : "DUE")
+                                                        .totalAmount(header.getTotalAmount())
+                                                        .deposit(header.getDeposit())
+                                                        .settlementDiscount(header.getSettlementDiscount())
+                                                        .netPayable(netPayable)
+                                                        .toBeReturned(netPayable.compareTo(BigDecimal.ZERO) < 0
+                                                                        ? netPayable.negate()
+                                                                        : BigDecimal.ZERO)
+                                                        .billDate(header.getBillDate())
+                                                        .createdAt(header.getCreatedAt())
+                                                        .rentalOrderId(orderIdByBill.get(header.getId()))
+                                                        .itemCount(lines != null ? lines.getItemCount().intValue() : 0)
+                                                        .lostItemCount(lines != null && lines.getLostItemCount() != null
+                                                                        ? lines.getLostItemCount().intValue()
+                                                                        : 0)
+                                                        .lineTotal(lines != null ? lines.getLineTotal() : BigDecimal.ZERO)
+                                                        .paymentCount(payments != null
+                                                                        ? payments.getPaymentCount().intValue()
+                                                                        : 0)
+                                                        .paymentTotal(payments != null ? payments.getPaymentTotal()
+                                                                        : BigDecimal.ZERO)
+                                                        .build();
+                                })
+                                .collect(Collectors.toList());
+        }
+
         private BillDTO toDTO(Bill bill) {
                 // Build a map of itemId -> bookedQty from the linked rental order (if any)
                 java.util.Map<Long, Integer> orderQtyMap = new java.util.HashMap<>();
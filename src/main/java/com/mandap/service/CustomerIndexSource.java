@@ -0,0 +1,76 @@
+package com.mandap.service;
+
+import com.mandap.entity.Customer;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Customer rows and rebuild timing shared by the in-memory customer
+ * lookups ({@link SearchIndex}, {@link CustomerSuggestions}).
+ */
+@Component
+public class CustomerIndexSource {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** A customer as the indexes see it. */
+    public record CustomerRow(Long id, String name, String mobile, List<String> palNumbers, boolean active) {
+    }
+
+    /** Every customer, or only the active ones, with their pal numbers. */
+    public void forEach(boolean activeOnly, Consumer<CustomerRow> consumer) {
+        Map<Long, List<String>> palNumbers = new HashMap<>();
+        jdbcTemplate.query("SELECT customer_id, pal_number FROM customer_pal_numbers", rs -> {
+            palNumbers.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getString(2));
+        });
+        jdbcTemplate.query("SELECT id, name, mobile, active FROM customers"
+                + (activeOnly ? " WHERE active = true" : ""), rs -> {
+                    consumer.accept(new CustomerRow(rs.getLong(1), rs.getString(2), rs.getString(3),
+                            palNumbers.getOrDefault(rs.getLong(1), List.of()), rs.getBoolean(4)));
+                });
+    }
+
+    /**
+     * Pal numbers of a changed customer. Pal numbers not loaded by the
+     * transaction were not changed by it, so the indexed ones (or, for a
+     * customer not indexed yet, the stored ones) still hold.
+     */
+    public List<String> palNumbers(Customer customer, List<String> indexed) {
+        if (Hibernate.isInitialized(customer.getPalNumbers())) {
+            return new ArrayList<>(customer.getPalNumbers());
+        }
+        if (indexed != null) {
+            return indexed;
+        }
+        return jdbcTemplate.queryForList("SELECT pal_number FROM customer_pal_numbers WHERE customer_id = ?",
+                String.class, customer.getId());
+    }
+
+    /**
+     * Run a rebuild once the current transaction commits, or now outside
+     * one, for bulk writes that publish no change events.
+     */
+    public void afterCommit(Runnable rebuild) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuild.run();
+            }
+        });
+    }
+}
@@ -1,11 +1,15 @@
 package com.mandap.service;
 
+import com.mandap.dto.CursorPageDTO;
 import com.mandap.dto.CustomerDTO;
+import com.mandap.dto.CustomerSuggestionDTO;
 import com.mandap.entity.Customer;
 import com.mandap.repository.CustomerRepository;
 import com.mandap.repository.RentalOrderRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,37 +27,66 @@ public class CustomerService {
         @Autowired
         private RentalOrderRepository rentalOrderRepository;
 
+        @Autowired
+        private SearchIndex searchIndex;
+
+        @Autowired
+        private CustomerSuggestions customerSuggestions;
+
+        @Autowired
+        private ApplicationEventPublisher eventPublisher;
+
         public List<CustomerDTO> getAllCustomers() {
-                java.util.Set<Long> unbilledCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithUnbilledOrders());
-                java.util.Set<Long> billedCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithBilledOrders());
-                java.util.Set<Long> anyOrderCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithAnyOrders());
-                java.util.Set<Long> pendingBillCustomerIds = new java.util.HashSet<>(
-                                billRepository.findCustomerIdsWithPendingBills());
-                java.util.Set<Long> activeOrderCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithActiveOrders());
-
-                return customerRepository.findAllActive().stream()
-                                .map(c -> toDTOWithFlags(c, unbilledCustomerIds, billedCustomerIds,
-                                                anyOrderCustomerIds, pendingBillCustomerIds, activeOrderCustomerIds))
-                                .collect(Collectors.toList());
+                return toDTOsWithFlags(customerRepository.findAllActive(), customerRepository.getActiveFlagMasks());
         }
 
-        public List<com.mandap.dto.CustomerAuditDTO> getCustomerAuditHistory(Long id) {
-                if (id == null)
-                        return new java.util.ArrayList<>();
-                org.springframework.data.history.Revisions<Integer, Customer> revisions = customerRepository
-                                .findRevisions(id);
+        /**
+         * Get one page of active customers using keyset pagination on (name, id).
+         * Alphabetical unless direction is "desc".
+         */
+        public CursorPageDTO<CustomerDTO> getCustomersPage(String cursor, Integer size, String direction,
+                        String query) {
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                int pageSize = KeysetCursor.pageSize(size);
+                String search = query != null && !query.isBlank() ? query.trim() : null;
+                String afterName = after != null ? after.key() : null;
+                Long afterId = after != null ? after.id() : null;
+                PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+                List<Customer> customers = KeysetCursor.isAscending(direction, true)
+                                ? customerRepository.findPageByNameAscending(search, afterName, afterId, limit)
+                                : customerRepository.findPageByNameDescending(search, afterName, afterId, limit);
+
+                boolean hasMore = customers.size() > pageSize;
+                if (hasMore) {
+                        customers = customers.subList(0, pageSize);
+                }
+
+                Customer last = customers.isEmpty() ? null : customers.get(customers.size() - 1);
+                return CursorPageDTO.<CustomerDTO>builder()
+                                .items(toDTOsWithFlags(customers))
+                                .hasMore(hasMore)
+                                .nextCursor(hasMore ? KeysetCursor.encode(last.getName(), last.getId()) : null)
+                                .build();
+        }
+
+        /**
+         * One page of a customer's audit history, newest first. Only the page's
+         * revisions and the one before them are loaded; the entity snapshot per
+         * revision is optional.
+         */
+        public com.mandap.dto.PageDTO<com.mandap.dto.CustomerAuditDTO> getCustomerAuditHistory(Long id, Integer page,
+                        Integer size, boolean includeEntity) {
+                AuditPage<Customer> auditPage = AuditPage.load(customerRepository, id, page, size);
                 List<com.mandap.dto.CustomerAuditDTO> auditList = new java.util.ArrayList<>();
-                Customer previousState = null;
+                AuditFieldTable<Customer>.Walker walker = AuditFields.CUSTOMER.walker();
+                walker.start(auditPage.priorState());
 
-                for (org.springframework.data.history.Revision<Integer, Customer> revision : revisions) {
+                for (org.springframework.data.history.Revision<Integer, Customer> revision : auditPage.oldestFirst()) {
                         Customer currentState = revision.getEntity();
                         java.util.Map<String, Object> changes = new java.util.HashMap<>();
 
-                        if (previousState == null) {
+                        if (!walker.hasPrevious()) {
                                 boolean isInsert = revision.getMetadata()
                                                 .getRevisionType() == org.springframework.data.history.RevisionMetadata.RevisionType.INSERT;
                                 if (isInsert) {
@@ -62,22 +95,10 @@ public class CustomerService {
                                 } else {
                                         changes.put("Status", new com.mandap.dto.FieldChangeDTO(null,
                                                         "Existing customer updated (First tracked change)"));
-                                        changes.put("Name", new com.mandap.dto.FieldChangeDTO(null,
-                                                        currentState.getName()));
-                                        changes.put("Mobile", new com.mandap.dto.FieldChangeDTO(null,
-                                                        currentState.getMobile()));
-                                        changes.put("Address", new com.mandap.dto.FieldChangeDTO(null,
-                                                        currentState.getAddress()));
-                                        changes.put("Alternate Contact", new com.mandap.dto.FieldChangeDTO(null,
-                                                        currentState.getAlternateContact()));
-                                        changes.put("Active Status", new com.mandap.dto.FieldChangeDTO(null,
-                                                        currentState.getActive() ? "Active" : "Inactive"));
-                                        changes.put("Pal Numbers", new com.mandap.dto.FieldChangeDTO(null,
-                                                        currentState.getPalNumbers()));
+                                        AuditFields.CUSTOMER.snapshot(currentState, changes);
                                 }
-                        } else {
-                                findChanges(previousState, currentState, changes);
                         }
+                        walker.next(currentState, changes);
 
                         auditList.add(com.mandap.dto.CustomerAuditDTO.builder()
                                         .revisionNumber(revision.getRequiredRevisionNumber())
@@ -91,46 +112,11 @@ public class CustomerService {
                                         .changedBy(((com.mandap.entity.AuditRevisionEntity) revision.getMetadata()
                                                         .getDelegate()).getUsername())
                                         .changes(changes)
-                                        .entity(toDTO(currentState))
+                                        .entity(includeEntity ? toDTO(currentState) : null)
                                         .build());
-
-                        previousState = currentState;
                 }
 
-                // Return in reverse chronological order
-                java.util.Collections.reverse(auditList);
-                return auditList;
-        }
-
-        private void findChanges(Customer oldState, Customer newState, java.util.Map<String, Object> changes) {
-                if (!java.util.Objects.equals(oldState.getName(), newState.getName())) {
-                        changes.put("Name", new com.mandap.dto.FieldChangeDTO(oldState.getName(), newState.getName()));
-                }
-                if (!java.util.Objects.equals(oldState.getMobile(), newState.getMobile())) {
-                        changes.put("Mobile",
-                                        new com.mandap.dto.FieldChangeDTO(oldState.getMobile(), newState.getMobile()));
-                }
-                if (!java.util.Objects.equals(oldState.getAddress(), newState.getAddress())) {
-                        changes.put("Address", new com.mandap.dto.FieldChangeDTO(oldState.getAddress(),
-                                        newState.getAddress()));
-                }
-                if (!java.util.Objects.equals(oldState.getAlternateContact(), newState.getAlternateContact())) {
-                        changes.put("Alternate Contact", new com.mandap.dto.FieldChangeDTO(
-                                        oldState.getAlternateContact(), newState.getAlternateContact()));
-                }
-                if (!java.util.Objects.equals(oldState.getActive(), newState.getActive())) {
-                        changes.put("Active Status", new com.mandap.dto.FieldChangeDTO(
-                                        oldState.getActive() ? "Active" : "Inactive",
-                                        newState.getActive() ? "Active" : "Inactive"));
-                }
-                if (!java.util.Objects.equals(oldState.getPalNumbers(), newState.getPalNumbers())) {
-                        changes.put("Pal Numbers", new com.mandap.dto.FieldChangeDTO(oldState.getPalNumbers(),
-                                        newState.getPalNumbers()));
-                }
-                if (!java.util.Objects.equals(oldState.getNotes(), newState.getNotes())) {
-                        changes.put("Notes",
-                                        new com.mandap.dto.FieldChangeDTO(oldState.getNotes(), newState.getNotes()));
-                }
+                return auditPage.toDTO(auditList);
         }
 
         public CustomerDTO getCustomerById(Long id) {
@@ -140,20 +126,37 @@ public class CustomerService {
         }
 
         public List<CustomerDTO> searchCustomers(String query) {
-                java.util.Set<Long> unbilledCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithUnbilledOrders());
-                java.util.Set<Long> billedCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithBilledOrders());
-                java.util.Set<Long> anyOrderCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithAnyOrders());
-                java.util.Set<Long> pendingBillCustomerIds = new java.util.HashSet<>(
-                                billRepository.findCustomerIdsWithPendingBills());
-                java.util.Set<Long> activeOrderCustomerIds = new java.util.HashSet<>(
-                                rentalOrderRepository.findCustomerIdsWithActiveOrders());
+                if (!searchIndex.isReady()) {
+                        return toDTOsWithFlags(customerRepository.searchByNameOrMobile(query));
+                }
+                List<Long> ids = searchIndex.searchCustomers(query);
+                java.util.Map<Long, Customer> byId = customerRepository.findAllById(ids).stream()
+                                .collect(Collectors.toMap(Customer::getId, c -> c));
+                return toDTOsWithFlags(ids.stream()
+                                .map(byId::get)
+                                .filter(java.util.Objects::nonNull)
+                                .collect(Collectors.toList()));
+        }
 
+        /**
+         * Type-ahead matches by mobile, pal number or name prefix, served from
+         * memory without flags. Until the suggestions are built at startup the
+         * LIKE search answers instead.
+         */
+        public List<CustomerSuggestionDTO> suggestCustomers(String query, Integer limit) {
+                if (customerSuggestions.isReady()) {
+                        return customerSuggestions.suggest(query, limit);
+                }
+                int max = limit == null || limit <= 0 ? CustomerSuggestions.DEFAULT_LIMIT
+                                : Math.min(limit, CustomerSuggestions.MAX_LIMIT);
                 return customerRepository.searchByNameOrMobile(query).stream()
-                                .map(c -> toDTOWithFlags(c, unbilledCustomerIds, billedCustomerIds,
-                                                anyOrderCustomerIds, pendingBillCustomerIds, activeOrderCustomerIds))
+                                .limit(max)
+                                .map(customer -> CustomerSuggestionDTO.builder()
+                                                .id(customer.getId())
+                                                .name(customer.getName())
+                                                .mobile(customer.getMobile())
+                                                .palNumbers(new java.util.ArrayList<>(customer.getPalNumbers()))
+                                                .build())
                                 .collect(Collectors.toList());
         }
 
@@ -170,6 +173,7 @@ public class CustomerService {
                                 .build();
 
                 customer = customerRepository.save(customer);
+                eventPublisher.publishEvent(EntityChangedEvent.saved(customer));
                 log.info("Customer created: id={}, name={}, mobile={}", customer.getId(), customer.getName(),
                                 customer.getMobile());
                 return toDTO(customer);
@@ -192,6 +196,7 @@ public class CustomerService {
                 }
 
                 customer = customerRepository.save(customer);
+                eventPublisher.publishEvent(EntityChangedEvent.saved(customer));
                 return toDTO(customer);
         }
 
@@ -215,16 +220,37 @@ public class CustomerService {
 
                 customer.setActive(false);
                 customerRepository.save(customer);
+                eventPublisher.publishEvent(EntityChangedEvent.saved(customer));
                 log.info("Customer soft-deleted: id={}", id);
         }
 
         private CustomerDTO toDTO(Customer customer) {
-                return toDTOWithFlags(customer, null, null, null, null, null);
+                return toDTOWithFlags(customer, 0);
+        }
+
+        /**
+         * Map customers to DTOs, reading all order/bill flags for the list in one
+         * grouped query.
+         */
+        private List<CustomerDTO> toDTOsWithFlags(List<Customer> customers) {
+                if (customers.isEmpty()) {
+                        return new java.util.ArrayList<>();
+                }
+                List<Long> customerIds = customers.stream().map(Customer::getId).collect(Collectors.toList());
+                return toDTOsWithFlags(customers, customerRepository.getFlagMasks(customerIds));
+        }
+
+        private List<CustomerDTO> toDTOsWithFlags(List<Customer> customers, List<Object[]> flagRows) {
+                java.util.Map<Long, Integer> flagMasks = new java.util.HashMap<>();
+                for (Object[] row : flagRows) {
+                        flagMasks.put((Long) row[0], ((Number) row[1]).intValue());
+                }
+                return customers.stream()
+                                .map(c -> toDTOWithFlags(c, flagMasks.getOrDefault(c.getId(), 0)))
+                                .collect(Collectors.toList());
         }
 
-        private CustomerDTO toDTOWithFlags(Customer customer, java.util.Set<Long> unbilledIds,
-                        java.util.Set<Long> billedIds, java.util.Set<Long> anyOrderIds,
-                        java.util.Set<Long> pendingBillIds, java.util.Set<Long> activeOrderIds) {
+        private CustomerDTO toDTOWithFlags(Customer customer, int flags) {
                 return CustomerDTO.builder()
                                 .id(customer.getId())
                                 .name(customer.getName())
@@ -236,11 +262,11 @@ public class CustomerService {
                                 .address(customer.getAddress())
                                 .notes(customer.getNotes())
                                 .active(customer.getActive())
-                                .hasUnbilledOrders(unbilledIds != null && unbilledIds.contains(customer.getId()))
-                                .hasBilledOrders(billedIds != null && billedIds.contains(customer.getId()))
-                                .hasRentalOrders(anyOrderIds != null && anyOrderIds.contains(customer.getId()))
-                                .hasPendingBills(pendingBillIds != null && pendingBillIds.contains(customer.getId()))
-                                .hasActiveOrders(activeOrderIds != null && activeOrderIds.contains(customer.getId()))
+                                .hasUnbilledOrders((flags & CustomerRepository.FLAG_UNBILLED_ORDERS) != 0)
+                                .hasBilledOrders((flags & CustomerRepository.FLAG_BILLED_ORDERS) != 0)
+                                .hasRentalOrders((flags & CustomerRepository.FLAG_ANY_ORDERS) != 0)
+                                .hasPendingBills((flags & CustomerRepository.FLAG_PENDING_BILLS) != 0)
+                                .hasActiveOrders((flags & CustomerRepository.FLAG_ACTIVE_ORDERS) != 0)
                                 .build();
         }
 }
@@ -0,0 +1,163 @@
+package com.mandap.service;
+
+import com.mandap.dto.CustomerSuggestionDTO;
+import com.mandap.entity.Customer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead lookup of active customers by the start of their mobile
+ * number, a pal number, or any word of their name. Keys live in a
+ * {@link PrefixTrie} next to a compact copy of each customer, so a
+ * suggestion never touches the database. Built once the application is
+ * ready and updated from customer {@link EntityChangedEvent}s after commit.
+ */
+@Slf4j
+@Service
+public class CustomerSuggestions {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    @Autowired
+    private CustomerIndexSource customerIndexSource;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private PrefixTrie trie = new PrefixTrie();
+
+    private Map<Long, CustomerSuggestionDTO> customers = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        PrefixTrie rebuiltTrie = new PrefixTrie();
+        Map<Long, CustomerSuggestionDTO> rebuiltCustomers = new HashMap<>();
+        customerIndexSource.forEach(true, row -> {
+            CustomerSuggestionDTO customer = CustomerSuggestionDTO.builder()
+                    .id(row.id())
+                    .name(row.name())
+                    .mobile(row.mobile())
+                    .palNumbers(row.palNumbers())
+                    .build();
+            rebuiltCustomers.put(customer.getId(), customer);
+            keys(customer).forEach(key -> rebuiltTrie.add(key, customer.getId()));
+        });
+
+        lock.writeLock().lock();
+        try {
+            trie = rebuiltTrie;
+            customers = rebuiltCustomers;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Customer suggestions rebuilt in {} ms: customers={}, keys={}",
+                System.currentTimeMillis() - start, rebuiltCustomers.size(), rebuiltTrie.size());
+    }
+
+    /**
+     * Rebuild once the current transaction commits, for bulk writes that
+     * publish no change events.
+     */
+    public void rebuildAfterCommit() {
+        customerIndexSource.afterCommit(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return loaded;
+    }
+
+    /**
+     * Up to limit active customers with a mobile number, pal number or name
+     * word starting with the query; exact matches and shorter keys first.
+     */
+    public List<CustomerSuggestionDTO> suggest(String query, Integer limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        lock.readLock().lock();
+        try {
+            List<CustomerSuggestionDTO> result = new ArrayList<>();
+            for (Long id : trie.find(prefix, max)) {
+                result.add(customers.get(id));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEntityChanged(EntityChangedEvent event) {
+        if (!(event.entity() instanceof Customer customer) || !loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            CustomerSuggestionDTO old = customers.remove(customer.getId());
+            if (old != null) {
+                keys(old).forEach(key -> trie.remove(key, old.getId()));
+            }
+            if (event.removed() || !Boolean.TRUE.equals(customer.getActive())) {
+                return;
+            }
+            List<String> palNumbers = customerIndexSource.palNumbers(customer,
+                    old != null ? old.getPalNumbers() : null);
+            CustomerSuggestionDTO updated = CustomerSuggestionDTO.builder()
+                    .id(customer.getId())
+                    .name(customer.getName())
+                    .mobile(customer.getMobile())
+                    .palNumbers(palNumbers)
+                    .build();
+            customers.put(updated.getId(), updated);
+            keys(updated).forEach(key -> trie.add(key, updated.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Mobile, each pal number, and the name from its start and from each later word
+    private static Set<String> keys(CustomerSuggestionDTO customer) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(normalize(customer.getMobile()));
+        customer.getPalNumbers().forEach(palNumber -> keys.add(normalize(palNumber)));
+        String name = normalize(customer.getName());
+        keys.add(name);
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            keys.add(name.substring(i + 1));
+        }
+        keys.remove("");
+        return keys;
+    }
+
+    // Lower case, NFC, single spaces; mobile numbers also lose +, - and spaces
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC)
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+        return normalized.matches("[+\\d\\s-]+") ? normalized.replaceAll("[^\\d]", "") : normalized;
+    }
+}
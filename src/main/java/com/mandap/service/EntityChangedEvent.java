@@ -0,0 +1,18 @@
+package com.mandap.service;
+
+/**
+ * Published by the services when a customer, bill or inventory item is saved
+ * or deleted. Listeners use {@code @TransactionalEventListener} so they only
+ * see changes that committed; the entity is read after the commit, so only
+ * fields already loaded in the transaction are safe to use.
+ */
+public record EntityChangedEvent(Object entity, boolean removed) {
+
+    public static EntityChangedEvent saved(Object entity) {
+        return new EntityChangedEvent(entity, false);
+    }
+
+    public static EntityChangedEvent removed(Object entity) {
+        return new EntityChangedEvent(entity, true);
+    }
+}
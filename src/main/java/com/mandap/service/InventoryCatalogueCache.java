@@ -0,0 +1,182 @@
+package com.mandap.service;
+
+import com.mandap.dto.InventoryCatalogueStatsDTO;
+import com.mandap.dto.InventoryItemDTO;
+import com.mandap.entity.RentalOrder;
+import com.mandap.entity.RentalOrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Versioned in-memory copy of the inventory catalogue (items with their
+ * booked, dispatched and returned totals over active orders).
+ *
+ * <p>Services that change stock or order quantities mark the affected items
+ * as changed; the next read reloads only those items and bumps the version.
+ * Structural changes (new items, reordering, bulk writes) reload everything.
+ * Marks made inside a transaction are repeated after it completes, so a
+ * reader that loaded the old rows in the meantime cannot keep them. The
+ * version starts from the startup time so ETags from before a restart never
+ * match.
+ */
+@Slf4j
+@Component
+public class InventoryCatalogueCache {
+
+    @Value("${app.inventory.catalogue-cache.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    private final Set<Long> changedItems = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean changedAll = true;
+
+    private volatile Snapshot snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder partialRefreshes = new LongAdder();
+    private final LongAdder fullReloads = new LongAdder();
+
+    /**
+     * A catalogue version. The item list is shared between readers and must
+     * not be modified.
+     */
+    public record Snapshot(long version, List<InventoryItemDTO> items) {
+
+        public String etag() {
+            return "\"inventory-" + version + "\"";
+        }
+    }
+
+    /**
+     * Current catalogue. The loader returns the items for the given ids, or
+     * the whole catalogue in display order when the ids are null.
+     */
+    public Snapshot get(Function<Collection<Long>, List<InventoryItemDTO>> loader) {
+        if (!enabled) {
+            return new Snapshot(version.incrementAndGet(), loader.apply(null));
+        }
+        Snapshot current = snapshot;
+        if (current != null && !changedAll && changedItems.isEmpty()) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return refresh(loader);
+    }
+
+    public void itemChanged(Long inventoryItemId) {
+        changedItems.add(inventoryItemId);
+        afterCompletion(() -> changedItems.add(inventoryItemId));
+    }
+
+    /**
+     * Every line of the order moved stock or changed its totals.
+     */
+    public void orderChanged(RentalOrder order) {
+        for (RentalOrderItem item : order.getItems()) {
+            itemChanged(item.getInventoryItem().getId());
+        }
+    }
+
+    public void invalidateAll() {
+        changedAll = true;
+        afterCompletion(() -> changedAll = true);
+    }
+
+    public InventoryCatalogueStatsDTO getStats() {
+        Snapshot current = snapshot;
+        return InventoryCatalogueStatsDTO.builder()
+                .enabled(enabled)
+                .version(current != null ? current.version() : null)
+                .items(current != null ? current.items().size() : 0)
+                .pendingChanges(changedAll ? null : changedItems.size())
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .partialRefreshes(partialRefreshes.sum())
+                .fullReloads(fullReloads.sum())
+                .build();
+    }
+
+    private synchronized Snapshot refresh(Function<Collection<Long>, List<InventoryItemDTO>> loader) {
+        Snapshot current = snapshot;
+        if (current != null && !changedAll && changedItems.isEmpty()) {
+            // Another reader refreshed while this one waited
+            return current;
+        }
+
+        // Clear the marks before loading so changes committed during the
+        // load are picked up by the next read
+        Set<Long> itemIds = new HashSet<>(changedItems);
+        changedItems.removeAll(itemIds);
+        boolean reloadAll = changedAll || current == null;
+        changedAll = false;
+
+        List<InventoryItemDTO> items = reloadAll ? null : merge(current.items(), loader.apply(itemIds), itemIds);
+        if (items == null) {
+            items = loader.apply(null);
+            fullReloads.increment();
+        } else {
+            partialRefreshes.increment();
+        }
+
+        Snapshot refreshed = new Snapshot(version.incrementAndGet(), List.copyOf(items));
+        snapshot = refreshed;
+        log.debug("Inventory catalogue refreshed: version={}, items={}, changed={}", refreshed.version(),
+                items.size(), reloadAll ? "all" : itemIds.size());
+        return refreshed;
+    }
+
+    // Replaces the reloaded items in place; null when an item is new or gone
+    // and the order of the list has to come from a full reload
+    private static List<InventoryItemDTO> merge(List<InventoryItemDTO> items, List<InventoryItemDTO> reloaded,
+            Set<Long> itemIds) {
+        if (reloaded.size() != itemIds.size()) {
+            return null;
+        }
+        Map<Long, InventoryItemDTO> byId = new HashMap<>();
+        reloaded.forEach(item -> byId.put(item.getId(), item));
+
+        List<InventoryItemDTO> merged = new ArrayList<>(items.size());
+        int replaced = 0;
+        for (InventoryItemDTO item : items) {
+            InventoryItemDTO fresh = byId.get(item.getId());
+            if (fresh != null) {
+                replaced++;
+                merged.add(fresh);
+            } else {
+                merged.add(item);
+            }
+        }
+        return replaced == byId.size() ? merged : null;
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.mandap.service;
 
+import com.mandap.dto.InventoryCatalogueStatsDTO;
 import com.mandap.dto.InventoryItemDTO;
 import com.mandap.entity.InventoryItem;
 import com.mandap.repository.InventoryItemRepository;
@@ -14,31 +15,77 @@ import java.util.stream.Collectors;
 @Transactional
 public class InventoryService {
 
+    // Ids per reorder statement, keeping bind parameter counts modest
+    private static final int REORDER_CHUNK_SIZE = 500;
+
     @Autowired
     private InventoryItemRepository inventoryItemRepository;
 
+    @jakarta.persistence.PersistenceContext
+    private jakarta.persistence.EntityManager entityManager;
+
+    @Autowired
+    private org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryCatalogueCache inventoryCatalogueCache;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
     public List<InventoryItemDTO> getAllItems() {
-        List<InventoryItemDTO> items = inventoryItemRepository.findAllOrdered().stream()
+        return getCatalogue().items();
+    }
+
+    /**
+     * All items with their order totals, served from the catalogue cache.
+     */
+    public InventoryCatalogueCache.Snapshot getCatalogue() {
+        return inventoryCatalogueCache.get(this::loadCatalogueItems);
+    }
+
+    public InventoryCatalogueStatsDTO getCatalogueStats() {
+        return inventoryCatalogueCache.getStats();
+    }
+
+    // Whole catalogue in display order when itemIds is null
+    private List<InventoryItemDTO> loadCatalogueItems(java.util.Collection<Long> itemIds) {
+        if (itemIds == null) {
+            List<InventoryItemDTO> items = inventoryItemRepository.findAllOrdered().stream()
+                    .map(this::toDTO)
+                    .collect(Collectors.toList());
+            populateTotals(items);
+            return items;
+        }
+        if (itemIds.isEmpty()) {
+            return new java.util.ArrayList<>();
+        }
+        List<InventoryItemDTO> items = inventoryItemRepository.findAllById(itemIds).stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
-
-        populateTotals(items);
+        applyTotals(items, rentalOrderItemRepository.getInventoryTotals(itemIds));
         return items;
     }
 
-    public List<com.mandap.dto.InventoryAuditDTO> getInventoryAuditHistory(Long id) {
-        if (id == null)
-            return new java.util.ArrayList<>();
-        org.springframework.data.history.Revisions<Integer, InventoryItem> revisions = inventoryItemRepository
-                .findRevisions(id);
+    /**
+     * One page of an item's audit history, newest first, with an optional
+     * entity snapshot per revision.
+     */
+    public com.mandap.dto.PageDTO<com.mandap.dto.InventoryAuditDTO> getInventoryAuditHistory(Long id, Integer page,
+            Integer size, boolean includeEntity) {
+        AuditPage<InventoryItem> auditPage = AuditPage.load(inventoryItemRepository, id, page, size);
         List<com.mandap.dto.InventoryAuditDTO> auditList = new java.util.ArrayList<>();
-        InventoryItem previousState = null;
+        AuditFieldTable<InventoryItem>.Walker walker = AuditFields.INVENTORY_ITEM.walker();
+        walker.start(auditPage.priorState());
 
-        for (org.springframework.data.history.Revision<Integer, InventoryItem> revision : revisions) {
+        for (org.springframework.data.history.Revision<Integer, InventoryItem> revision : auditPage.oldestFirst()) {
             InventoryItem currentState = revision.getEntity();
             java.util.Map<String, com.mandap.dto.FieldChangeDTO> changes = new java.util.HashMap<>();
 
-            if (previousState == null) {
+            if (!walker.hasPrevious()) {
                 boolean isInsert = revision.getMetadata()
                         .getRevisionType() == org.springframework.data.history.RevisionMetadata.RevisionType.INSERT;
                 if (isInsert) {
@@ -46,20 +93,10 @@ public class InventoryService {
                 } else {
                     changes.put("Status",
                             new com.mandap.dto.FieldChangeDTO(null, "Existing item updated (First tracked change)"));
-                    changes.put("Name (Gujarati)",
-                            new com.mandap.dto.FieldChangeDTO(null, currentState.getNameGujarati()));
-                    changes.put("Name (English)",
-                            new com.mandap.dto.FieldChangeDTO(null, currentState.getNameEnglish()));
-                    changes.put("Default Rate", new com.mandap.dto.FieldChangeDTO(null, currentState.getDefaultRate()));
-                    changes.put("Category", new com.mandap.dto.FieldChangeDTO(null,
-                            currentState.getCategory() != null ? currentState.getCategory().name() : null));
-                    changes.put("Total Stock", new com.mandap.dto.FieldChangeDTO(null, currentState.getTotalStock()));
-                    changes.put("Active Status",
-                            new com.mandap.dto.FieldChangeDTO(null, currentState.getActive() ? "Active" : "Inactive"));
+                    AuditFields.INVENTORY_ITEM.snapshot(currentState, changes);
                 }
-            } else {
-                findItemChanges(previousState, currentState, changes);
             }
+            walker.next(currentState, changes);
 
             auditList.add(com.mandap.dto.InventoryAuditDTO.builder()
                     .revisionNumber(revision.getRequiredRevisionNumber())
@@ -72,51 +109,22 @@ public class InventoryService {
                     .changedBy(((com.mandap.entity.AuditRevisionEntity) revision.getMetadata().getDelegate())
                             .getUsername())
                     .changes(changes)
-                    .entity(toDTO(currentState))
+                    .entity(includeEntity ? toDTO(currentState) : null)
                     .build());
-
-            previousState = currentState;
         }
 
-        java.util.Collections.reverse(auditList);
-        return auditList;
-    }
-
-    private void findItemChanges(InventoryItem oldState, InventoryItem newState,
-            java.util.Map<String, com.mandap.dto.FieldChangeDTO> changes) {
-        if (!java.util.Objects.equals(oldState.getNameGujarati(), newState.getNameGujarati())) {
-            changes.put("Name (Gujarati)",
-                    new com.mandap.dto.FieldChangeDTO(oldState.getNameGujarati(), newState.getNameGujarati()));
-        }
-        if (!java.util.Objects.equals(oldState.getNameEnglish(), newState.getNameEnglish())) {
-            changes.put("Name (English)",
-                    new com.mandap.dto.FieldChangeDTO(oldState.getNameEnglish(), newState.getNameEnglish()));
-        }
-        if (!java.util.Objects.equals(oldState.getDefaultRate(), newState.getDefaultRate())) {
-            changes.put("Default Rate",
-                    new com.mandap.dto.FieldChangeDTO(oldState.getDefaultRate(), newState.getDefaultRate()));
-        }
-        if (!java.util.Objects.equals(oldState.getCategory(), newState.getCategory())) {
-            changes.put("Category", new com.mandap.dto.FieldChangeDTO(
-                    oldState.getCategory() != null ? oldState.getCategory().name() : null,
-                    newState.getCategory() != null ? newState.getCategory().name() : null));
-        }
-        if (!java.util.Objects.equals(oldState.getTotalStock(), newState.getTotalStock())) {
-            changes.put("Total Stock",
-                    new com.mandap.dto.FieldChangeDTO(oldState.getTotalStock(), newState.getTotalStock()));
-        }
-        if (!java.util.Objects.equals(oldState.getActive(), newState.getActive())) {
-            changes.put("Active Status", new com.mandap.dto.FieldChangeDTO(
-                    oldState.getActive() ? "Active" : "Inactive",
-                    newState.getActive() ? "Active" : "Inactive"));
-        }
+        return auditPage.toDTO(auditList);
     }
 
     private void populateTotals(List<InventoryItemDTO> items) {
         if (items.isEmpty())
             return;
 
-        java.util.Map<Long, Object[]> totalsMap = rentalOrderItemRepository.getInventoryTotals().stream()
+        applyTotals(items, rentalOrderItemRepository.getInventoryTotals());
+    }
+
+    private void applyTotals(List<InventoryItemDTO> items, List<Object[]> totalsRows) {
+        java.util.Map<Long, Object[]> totalsMap = totalsRows.stream()
                 .collect(Collectors.toMap(
                         obj -> (Long) obj[0],
                         obj -> obj));
@@ -162,19 +170,26 @@ public class InventoryService {
         if (dto.getActive() != null) {
             item.setActive(dto.getActive());
         }
+        inventoryCatalogueCache.itemChanged(id);
+        int stockDelta = 0;
         if (dto.getTotalStock() != null) {
-            int oldTotal = item.getTotalStock();
-            int newTotal = dto.getTotalStock();
-            int delta = newTotal - oldTotal;
-
-            item.setTotalStock(newTotal);
-            // Adjust available stock by the change in total stock
-            item.setAvailableStock(item.getAvailableStock() + delta);
+            stockDelta = dto.getTotalStock() - item.getTotalStock();
+            item.setTotalStock(dto.getTotalStock());
         }
         // Do not update available stock directly from DTO
 
         item = inventoryItemRepository.save(item);
-        return toDTO(item);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(item));
+        if (stockDelta == 0) {
+            return toDTO(item);
+        }
+
+        // Adjust available stock by the change in total stock as a delta so
+        // concurrent dispatches and returns are not overwritten
+        inventoryItemRepository.adjustAvailableStock(id, stockDelta);
+        InventoryItemDTO result = toDTO(item);
+        result.setAvailableStock(inventoryItemRepository.findAvailableStock(id));
+        return result;
     }
 
     public InventoryItemDTO createItem(InventoryItemDTO dto) {
@@ -205,6 +220,8 @@ public class InventoryService {
         }
 
         item = inventoryItemRepository.save(item);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(item));
+        inventoryCatalogueCache.invalidateAll();
         return toDTO(item);
     }
 
@@ -223,6 +240,15 @@ public class InventoryService {
     }
 
     public List<InventoryItemDTO> searchItems(String query) {
+        if (searchIndex.isReady()) {
+            // Matching ids from the index, rows with totals from the catalogue
+            java.util.Map<Long, InventoryItemDTO> byId = getCatalogue().items().stream()
+                    .collect(Collectors.toMap(InventoryItemDTO::getId, item -> item));
+            return searchIndex.searchInventoryItems(query).stream()
+                    .map(byId::get)
+                    .filter(java.util.Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
         List<InventoryItemDTO> items = inventoryItemRepository.searchByName(query).stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
@@ -251,13 +277,80 @@ public class InventoryService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Set display order to each item's position in the list. Only rows whose
+     * order actually changes are written, with one UPDATE ... CASE per chunk,
+     * and they are audited together as a single revision.
+     */
     public void reorderItems(List<Long> itemIds) {
+        java.util.Map<Long, Integer> positions = new java.util.LinkedHashMap<>();
         for (int i = 0; i < itemIds.size(); i++) {
-            Long itemId = itemIds.get(i);
-            InventoryItem item = inventoryItemRepository.findById(itemId)
-                    .orElseThrow(() -> new RuntimeException("Item not found: " + itemId));
-            item.setDisplayOrder(i);
-            inventoryItemRepository.save(item);
+            positions.put(itemIds.get(i), i);
+        }
+        if (positions.isEmpty()) {
+            return;
+        }
+
+        java.util.Map<Long, Integer> current = new java.util.HashMap<>();
+        for (List<Long> chunk : chunks(new java.util.ArrayList<>(positions.keySet()))) {
+            org.springframework.jdbc.core.RowCallbackHandler row = rs -> current.put(rs.getLong(1),
+                    (Integer) rs.getObject(2));
+            jdbcTemplate.query("SELECT id, display_order FROM inventory_items WHERE id IN ("
+                    + placeholders(chunk.size()) + ")", row, chunk.toArray());
         }
+
+        List<Long> changed = new java.util.ArrayList<>();
+        for (java.util.Map.Entry<Long, Integer> position : positions.entrySet()) {
+            if (!current.containsKey(position.getKey())) {
+                throw new RuntimeException("Item not found: " + position.getKey());
+            }
+            if (!position.getValue().equals(current.get(position.getKey()))) {
+                changed.add(position.getKey());
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // The UPDATE bypasses Hibernate, so Envers would not see it: take the
+        // transaction's Envers revision and copy the updated rows into it
+        com.mandap.entity.AuditRevisionEntity revision = org.hibernate.envers.AuditReaderFactory.get(entityManager)
+                .getCurrentRevision(com.mandap.entity.AuditRevisionEntity.class, true);
+
+        java.sql.Timestamp now = java.sql.Timestamp.valueOf(java.time.LocalDateTime.now());
+        for (List<Long> chunk : chunks(changed)) {
+            List<Object> args = new java.util.ArrayList<>();
+            StringBuilder cases = new StringBuilder();
+            for (Long id : chunk) {
+                cases.append(" WHEN ? THEN ?");
+                args.add(id);
+                args.add(positions.get(id));
+            }
+            args.add(now);
+            args.addAll(chunk);
+            jdbcTemplate.update("UPDATE inventory_items SET display_order = CASE id" + cases
+                    + " END, updated_at = ? WHERE id IN (" + placeholders(chunk.size()) + ")", args.toArray());
+
+            List<Object> auditArgs = new java.util.ArrayList<>();
+            auditArgs.add(revision.getId());
+            auditArgs.addAll(chunk);
+            jdbcTemplate.update("INSERT INTO inventory_items_aud (rev, revtype, "
+                    + InventoryItemRepository.AUDIT_COLUMNS + ") SELECT ?, 1, "
+                    + InventoryItemRepository.AUDIT_COLUMNS + " FROM inventory_items WHERE id IN ("
+                    + placeholders(chunk.size()) + ")", auditArgs.toArray());
+        }
+        inventoryCatalogueCache.invalidateAll();
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new java.util.ArrayList<>();
+        for (int from = 0; from < ids.size(); from += REORDER_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + REORDER_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", java.util.Collections.nCopies(count, "?"));
     }
 }
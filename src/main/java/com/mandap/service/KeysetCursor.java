@@ -0,0 +1,73 @@
+package com.mandap.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination over a (sort key, id) pair.
+ * Encoded as URL-safe Base64 of "key|id".
+ */
+record KeysetCursor(String key, Long id) {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    static String encode(Object key, Long id) {
+        String raw = key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new RuntimeException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    LocalDateTime keyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid page cursor key: " + key);
+        }
+    }
+
+    LocalDate keyAsDate() {
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid page cursor key: " + key);
+        }
+    }
+
+    long keyAsLong() {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid page cursor key: " + key);
+        }
+    }
+
+    static int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    static boolean isAscending(String direction, boolean defaultAscending) {
+        if (direction == null || direction.isBlank()) {
+            return defaultAscending;
+        }
+        return "asc".equalsIgnoreCase(direction);
+    }
+}
@@ -0,0 +1,128 @@
+package com.mandap.service;
+
+import com.mandap.entity.NumberSequence;
+import com.mandap.repository.NumberSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out document numbers per prefix (e.g. "RO-2026-", "FS13-2026-").
+ * Each app instance reserves a block of numbers from the number_sequences
+ * table under a row lock in its own transaction, then serves numbers from an
+ * in-memory counter. Numbers are unique across instances; numbers left in a
+ * block when the app stops, or used by a rolled-back transaction, are
+ * skipped. Set the block size to 1 to keep gaps to a minimum.
+ */
+@Slf4j
+@Service
+public class NumberSequenceService {
+
+    @Autowired
+    private NumberSequenceRepository numberSequenceRepository;
+
+    @Value("${app.numbering.block-size:20}")
+    private int blockSize;
+
+    private final ConcurrentHashMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private final TransactionTemplate blockTransaction;
+
+    public NumberSequenceService(PlatformTransactionManager transactionManager) {
+        this.blockTransaction = new TransactionTemplate(transactionManager);
+        this.blockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Next number for a prefix. The seed supplies the highest number already
+     * in use and is only called the first time a prefix is seen by the database.
+     */
+    public long next(String prefix, LongSupplier seed) {
+        Block block = blocks.computeIfAbsent(prefix, k -> new Block());
+        while (true) {
+            long value = block.tryNext();
+            if (value > 0) {
+                return value;
+            }
+            synchronized (block) {
+                if (block.isExhausted()) {
+                    long start = reserveBlock(prefix, Math.max(blockSize, 1), seed);
+                    block.reset(start, start + Math.max(blockSize, 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserve {@code count} consecutive numbers for a prefix in one step, for
+     * bulk loads that assign numbers themselves. Returns the first number.
+     */
+    public long reserveRange(String prefix, int count, LongSupplier seed) {
+        return reserveBlock(prefix, Math.max(count, 1), seed);
+    }
+
+    private long reserveBlock(String prefix, int size, LongSupplier seed) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Long start = blockTransaction.execute(status -> {
+                    NumberSequence sequence = numberSequenceRepository.findForUpdate(prefix)
+                            .orElseGet(() -> numberSequenceRepository.saveAndFlush(NumberSequence.builder()
+                                    .sequenceKey(prefix)
+                                    .nextValue(seed.getAsLong() + 1)
+                                    .build()));
+                    long first = sequence.getNextValue();
+                    sequence.setNextValue(first + size);
+                    numberSequenceRepository.save(sequence);
+                    return first;
+                });
+                log.debug("Reserved number block for prefix={} starting at {}", prefix, start);
+                return start;
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the row first; lock it and retry
+                if (attempt >= 2) {
+                    throw new RuntimeException("Could not reserve number block for prefix: " + prefix, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A reserved range [next, limit). Numbers are taken with a CAS loop so
+     * callers never block while the range lasts.
+     */
+    private static final class Block {
+        private final AtomicLong next = new AtomicLong();
+        private volatile long limit = 0;
+
+        long tryNext() {
+            while (true) {
+                long current = next.get();
+                if (current >= limit) {
+                    return -1;
+                }
+                if (next.compareAndSet(current, current + 1)) {
+                    return current;
+                }
+            }
+        }
+
+        boolean isExhausted() {
+            return next.get() >= limit;
+        }
+
+        void reset(long start, long end) {
+            limit = 0;
+            next.set(start);
+            limit = end;
+        }
+    }
+}
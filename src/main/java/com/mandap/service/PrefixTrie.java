@@ -0,0 +1,177 @@
+package com.mandap.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compressed prefix trie (radix tree) from string keys to ids. Each edge
+ * holds the whole run of characters shared by the keys below it, so the
+ * tree has at most two nodes per key however long the keys are. Lookups
+ * return the ids under a prefix, shortest completed key first. Not thread
+ * safe; callers guard it.
+ */
+final class PrefixTrie {
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private Set<Long> ids;
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private record Reached(Node node, int keyLength) {
+    }
+
+    private final Node root = new Node("");
+
+    private int keys;
+
+    void add(String key, Long id) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                node = child;
+                break;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge where the key leaves it
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(split.label.charAt(0), split);
+                child = split;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.ids == null) {
+            node.ids = new TreeSet<>();
+            keys++;
+        }
+        node.ids.add(id);
+    }
+
+    void remove(String key, Long id) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            path.push(node);
+            node = child;
+            i += child.label.length();
+        }
+        if (node.ids == null || !node.ids.remove(id) || !node.ids.isEmpty()) {
+            return;
+        }
+        node.ids = null;
+        keys--;
+
+        // Drop nodes left without ids or children, then merge a node left
+        // with a single child into that child
+        while (node != root && node.ids == null && node.children.isEmpty()) {
+            Node parent = path.pop();
+            parent.children.remove(node.label.charAt(0));
+            node = parent;
+        }
+        if (node != root && node.ids == null && node.children.size() == 1) {
+            Node child = node.children.values().iterator().next();
+            node.label = node.label + child.label;
+            node.children.clear();
+            node.children.putAll(child.children);
+            node.ids = child.ids;
+        }
+    }
+
+    /**
+     * Up to limit ids stored under keys starting with the prefix, ids of
+     * shorter keys first (an exact key first of all), lower ids first among
+     * keys of the same length.
+     */
+    List<Long> find(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+            int common = commonPrefix(child.label, prefix, i);
+            if (common < child.label.length() && i + common < prefix.length()) {
+                return new ArrayList<>();
+            }
+            node = child;
+            i += child.label.length();
+        }
+
+        Set<Long> found = new LinkedHashSet<>();
+        PriorityQueue<Reached> queue = new PriorityQueue<>(Comparator.comparingInt(Reached::keyLength));
+        queue.add(new Reached(node, i));
+        while (!queue.isEmpty() && found.size() < limit) {
+            // All keys of the next length together, so their ids merge in order
+            int keyLength = queue.peek().keyLength();
+            TreeSet<Long> ids = new TreeSet<>();
+            while (!queue.isEmpty() && queue.peek().keyLength() == keyLength) {
+                Reached reached = queue.poll();
+                if (reached.node().ids != null) {
+                    ids.addAll(reached.node().ids);
+                }
+                for (Node child : reached.node().children.values()) {
+                    queue.add(new Reached(child, reached.keyLength() + child.label.length()));
+                }
+            }
+            for (Long id : ids) {
+                if (found.size() == limit) {
+                    break;
+                }
+                found.add(id);
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    int size() {
+        return keys;
+    }
+
+    // Nodes below the root, to check that removals prune and merge
+    int nodeCount() {
+        int count = 0;
+        Deque<Node> pending = new ArrayDeque<>(root.children.values());
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            count++;
+            pending.addAll(node.children.values());
+        }
+        return count;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int common = 0;
+        while (common < max && label.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+}
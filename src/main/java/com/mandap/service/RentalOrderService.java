@@ -1,5 +1,6 @@
 package com.mandap.service;
 
+import com.mandap.dto.CursorPageDTO;
 import com.mandap.dto.RentalOrderDTO;
 import com.mandap.dto.RentalOrderItemDTO;
 import com.mandap.dto.RentalOrderTransactionDTO;
@@ -7,10 +8,13 @@ import com.mandap.entity.*;
 import com.mandap.repository.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.Year;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -24,6 +28,9 @@ import java.util.stream.Collectors;
 @Transactional
 public class RentalOrderService {
 
+        /** Most orders one bulk voucher may touch, to bound its transaction. */
+        public static final int BULK_VOUCHER_MAX_ORDERS = 200;
+
         @Autowired
         private RentalOrderRepository rentalOrderRepository;
 
@@ -39,22 +46,75 @@ public class RentalOrderService {
         @Autowired
         private InventoryItemRepository inventoryItemRepository;
 
+        @Autowired
+        private InventoryCatalogueCache inventoryCatalogueCache;
+
+        @Autowired
+        private AtpLedger atpLedger;
+
+        @Autowired
+        private NumberSequenceService numberSequenceService;
+
+        @Autowired
+        private org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private AuditArchiveService auditArchiveService;
+
         /**
          * Get all rental orders.
+         * Voucher history is only loaded when includeTransactions is set.
          */
-        public List<RentalOrderDTO> getAllOrders() {
-                return rentalOrderRepository.findAll().stream()
-                                .map(this::toDTO)
-                                .collect(Collectors.toList());
+        public List<RentalOrderDTO> getAllOrders(boolean includeTransactions) {
+                return toDTOs(rentalOrderRepository.findAllWithDetails(), includeTransactions);
         }
 
         /**
          * Get active (non-completed, non-cancelled) orders.
          */
-        public List<RentalOrderDTO> getActiveOrders() {
-                return rentalOrderRepository.findActiveOrders().stream()
-                                .map(this::toDTO)
-                                .collect(Collectors.toList());
+        public List<RentalOrderDTO> getActiveOrders(boolean includeTransactions) {
+                return toDTOs(rentalOrderRepository.findActiveOrders(), includeTransactions);
+        }
+
+        /**
+         * Get one page of orders using keyset pagination on (createdAt, id).
+         * Newest first unless direction is "asc".
+         */
+        public CursorPageDTO<RentalOrderDTO> getOrdersPage(String cursor, Integer size, String direction,
+                        RentalOrder.RentalOrderStatus status, Long customerId, String query,
+                        boolean includeTransactions) {
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                int pageSize = KeysetCursor.pageSize(size);
+                String search = query != null && !query.isBlank() ? query.trim() : null;
+                LocalDateTime afterCreatedAt = after != null ? after.keyAsDateTime() : null;
+                Long afterId = after != null ? after.id() : null;
+                PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+                List<Long> ids = KeysetCursor.isAscending(direction, false)
+                                ? rentalOrderRepository.findPageIdsOldestFirst(status, customerId, search,
+                                                afterCreatedAt, afterId, limit)
+                                : rentalOrderRepository.findPageIdsNewestFirst(status, customerId, search,
+                                                afterCreatedAt, afterId, limit);
+
+                boolean hasMore = ids.size() > pageSize;
+                if (hasMore) {
+                        ids = ids.subList(0, pageSize);
+                }
+
+                List<RentalOrder> orders = new java.util.ArrayList<>();
+                if (!ids.isEmpty()) {
+                        java.util.Map<Long, RentalOrder> byId = rentalOrderRepository.findAllWithDetailsByIdIn(ids)
+                                        .stream()
+                                        .collect(Collectors.toMap(RentalOrder::getId, o -> o));
+                        ids.forEach(orderId -> orders.add(byId.get(orderId)));
+                }
+
+                RentalOrder last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+                return CursorPageDTO.<RentalOrderDTO>builder()
+                                .items(toDTOs(orders, includeTransactions))
+                                .hasMore(hasMore)
+                                .nextCursor(hasMore ? KeysetCursor.encode(last.getCreatedAt(), last.getId()) : null)
+                                .build();
         }
 
         /**
@@ -69,8 +129,11 @@ public class RentalOrderService {
 
         /**
          * Create a new booking (rental order).
-         * This reserves items but does not affect available stock yet.
+         * This reserves items but does not affect available stock yet. Read committed,
+         * so without the ATP ledger the committed totals read after the item row locks
+         * include bookings committed while waiting for them.
          */
+        @Transactional(isolation = Isolation.READ_COMMITTED)
         public RentalOrderDTO createBooking(RentalOrderDTO dto) {
                 log.info("Creating booking for customerId={}, items={}", dto.getCustomerId(),
                                 dto.getItems() != null ? dto.getItems().size() : 0);
@@ -86,31 +149,23 @@ public class RentalOrderService {
                                         "Customer already has a rental order. Please edit the existing order.");
                 }
 
+                // Load all requested inventory rows and their committed quantities up front,
+                // so validation costs the same number of queries however many lines there are
+                java.util.Map<Long, InventoryItem> inventoryItems = loadInventoryItems(dto.getItems());
+                java.util.Map<Long, Integer> committedQuantities = loadCommittedByOthers(null,
+                                inventoryItems.keySet());
+
                 // Validate stock availability
                 for (RentalOrderItemDTO itemDto : dto.getItems()) {
-                        InventoryItem invItem = inventoryItemRepository.findById(itemDto.getInventoryItemId())
-                                        .orElseThrow(
-                                                        () -> new RuntimeException("Inventory item not found: "
-                                                                        + (itemDto.getInventoryItemId() != null
-                                                                                        ? itemDto.getInventoryItemId()
-                                                                                        : "null")));
+                        InventoryItem invItem = inventoryItems.get(itemDto.getInventoryItemId());
 
                         // ATP Calculation:
                         // Real Available = Total Stock - (Sum of (Booked - Returned) for all active
                         // orders)
-                        // Note: We use the repository method we just added for Usage to get all active
-                        // items
-                        List<RentalOrderItem> activeItems = rentalOrderItemRepository
-                                        .findActiveUsageByInventoryItem(invItem.getId());
-
-                        int totalCommitted = activeItems.stream()
-                                        .mapToInt(i -> i.getBookedQty()
-                                                        - (i.getReturnedQty() != null ? i.getReturnedQty() : 0))
-                                        .sum();
-
+                        int totalCommitted = committedQuantities.getOrDefault(invItem.getId(), 0);
                         int realAvailable = invItem.getTotalStock() - totalCommitted;
 
-                        if (realAvailable < itemDto.getBookedQty()) {
+                        if (!reserveStock(invItem, itemDto.getBookedQty(), totalCommitted + itemDto.getBookedQty())) {
                                 throw new RuntimeException("Insufficient stock for item: " + invItem.getNameEnglish() +
                                                 ". Total Stock: " + invItem.getTotalStock() +
                                                 ", Committed: " + totalCommitted +
@@ -130,10 +185,8 @@ public class RentalOrderService {
 
                 // Add items
                 for (RentalOrderItemDTO itemDto : dto.getItems()) {
-                        InventoryItem invItem = inventoryItemRepository.findById(itemDto.getInventoryItemId()).get();
-
                         RentalOrderItem orderItem = RentalOrderItem.builder()
-                                        .inventoryItem(invItem)
+                                        .inventoryItem(inventoryItems.get(itemDto.getInventoryItemId()))
                                         .bookedQty(itemDto.getBookedQty())
                                         .dispatchedQty(0)
                                         .returnedQty(0)
@@ -143,6 +196,7 @@ public class RentalOrderService {
                 }
 
                 order = rentalOrderRepository.save(order);
+                inventoryCatalogueCache.orderChanged(order);
                 log.info("Booking created: orderNumber={}, customerId={}, items={}", order.getOrderNumber(),
                                 customer.getId(), order.getItems().size());
                 return toDTO(order);
@@ -151,8 +205,9 @@ public class RentalOrderService {
         /**
          * Update an existing rental order.
          * Merges items: updates quantities, adds new items, removes missing items (if
-         * not dispatched).
+         * not dispatched). Read committed for the same reason as createBooking.
          */
+        @Transactional(isolation = Isolation.READ_COMMITTED)
         public RentalOrderDTO updateOrder(Long id, RentalOrderDTO dto) {
                 RentalOrder order = rentalOrderRepository.findById(id)
                                 .orElseThrow(() -> new RuntimeException(
@@ -170,21 +225,18 @@ public class RentalOrderService {
 
                 // Update items
                 if (dto.getItems() != null) {
+                        java.util.Map<Long, InventoryItem> inventoryItems = loadInventoryItems(dto.getItems());
+                        java.util.Map<Long, Integer> committedByOthersMap = loadCommittedByOthers(order,
+                                        inventoryItems.keySet());
+                        java.util.Map<Long, RentalOrderItem> existingItems = order.getItems().stream()
+                                        .collect(Collectors.toMap(i -> i.getInventoryItem().getId(), i -> i,
+                                                        (first, second) -> first));
+
                         // 1. Update existing items and add new ones
                         for (RentalOrderItemDTO itemDto : dto.getItems()) {
-                                InventoryItem invItem = inventoryItemRepository.findById(itemDto.getInventoryItemId())
-                                                .orElseThrow(() -> new RuntimeException(
-                                                                "Inventory item not found: "
-                                                                                + (itemDto.getInventoryItemId() != null
-                                                                                                ? itemDto.getInventoryItemId()
-                                                                                                : "null")));
-
-                                RentalOrderItem existingItem = order.getItems().stream()
-                                                .filter(i -> i.getInventoryItem().getId().equals(invItem.getId()))
-                                                .findFirst()
-                                                .orElse(null);
-
-                                final Long currentOrderId = order.getId();
+                                InventoryItem invItem = inventoryItems.get(itemDto.getInventoryItemId());
+                                RentalOrderItem existingItem = existingItems.get(invItem.getId());
+                                int committedByOthers = committedByOthersMap.getOrDefault(invItem.getId(), 0);
 
                                 if (existingItem != null) {
                                         // Update existing
@@ -195,33 +247,15 @@ public class RentalOrderService {
                                         }
 
                                         // ATP Check for update:
-                                        // 1. Get all active usage
-                                        List<RentalOrderItem> activeItems = rentalOrderItemRepository
-                                                        .findActiveUsageByInventoryItem(invItem.getId());
-
-                                        // 2. Calculate committed quantity by OTHERS
-                                        int committedByOthers = activeItems.stream()
-                                                        .filter(i -> !i.getRentalOrder().getId().equals(currentOrderId))
-                                                        .mapToInt(i -> i.getBookedQty() - (i.getReturnedQty() != null
-                                                                        ? i.getReturnedQty()
-                                                                        : 0))
-                                                        .sum();
-
-                                        // 3. Real Available for THIS order = Total Stock - CommittedByOthers + (My
-                                        // Returned So Far)
-                                        // Wait, logic: TotalStock >= CommittedByOthers + MyNewBooked - MyReturned
-                                        // So: AvailableForBooking = TotalStock - CommittedByOthers + MyReturned
-                                        // Check if MyNewBooked <= AvailableForBooking
-
+                                        // Committed_New = CommittedByOthers + (NewBooked - MyReturned)
+                                        // if Committed_New > TotalStock -> Error.
                                         int myReturned = existingItem.getReturnedQty() != null
                                                         ? existingItem.getReturnedQty()
                                                         : 0;
-                                        // Committed_New = CommittedByOthers + (NewBooked - MyReturned)
-                                        // if Committed_New > TotalStock -> Error.
-
                                         int newCommitted = committedByOthers + (itemDto.getBookedQty() - myReturned);
+                                        int delta = itemDto.getBookedQty() - existingItem.getBookedQty();
 
-                                        if (newCommitted > invItem.getTotalStock()) {
+                                        if (!reserveStock(invItem, delta, newCommitted)) {
                                                 throw new RuntimeException("Insufficient stock for item: "
                                                                 + invItem.getNameEnglish() +
                                                                 ". Total: " + invItem.getTotalStock() +
@@ -236,20 +270,9 @@ public class RentalOrderService {
                                         existingItem.setBookedQty(itemDto.getBookedQty());
                                 } else {
                                         // Add new item
-                                        // ATP Check
-                                        List<RentalOrderItem> activeItems = rentalOrderItemRepository
-                                                        .findActiveUsageByInventoryItem(invItem.getId());
-                                        int committedByOthers = activeItems.stream()
-                                                        .filter(i -> !i.getRentalOrder().getId().equals(currentOrderId))
-                                                        .mapToInt(i -> i.getBookedQty() - (i.getReturnedQty() != null
-                                                                        ? i.getReturnedQty()
-                                                                        : 0))
-                                                        .sum();
-
-                                        // Since it's a new item in this order, MyReturned = 0.
-                                        int newCommitted = committedByOthers + itemDto.getBookedQty();
-
-                                        if (newCommitted > invItem.getTotalStock()) {
+                                        // ATP Check (new in this order, so MyReturned = 0)
+                                        if (!reserveStock(invItem, itemDto.getBookedQty(),
+                                                        committedByOthers + itemDto.getBookedQty())) {
                                                 throw new RuntimeException("Insufficient stock for item: "
                                                                 + invItem.getNameEnglish());
                                         }
@@ -261,13 +284,12 @@ public class RentalOrderService {
                                                         .returnedQty(0)
                                                         .build();
                                         order.addItem(newItem);
+                                        existingItems.put(invItem.getId(), newItem);
                                 }
                         }
 
                         // 2. Remove missing items
-                        List<Long> dtoItemIds = dto.getItems().stream()
-                                        .map(RentalOrderItemDTO::getInventoryItemId)
-                                        .collect(Collectors.toList());
+                        java.util.Set<Long> dtoItemIds = inventoryItems.keySet();
 
                         // Collect items to remove first to avoid concurrent modification
                         List<RentalOrderItem> itemsToRemove = order.getItems().stream()
@@ -280,6 +302,9 @@ public class RentalOrderService {
                                                         "Cannot remove item that has been dispatched: "
                                                                         + item.getInventoryItem().getNameEnglish());
                                 }
+                                // Nothing dispatched, so the whole booked quantity is still committed
+                                atpLedger.release(item.getInventoryItem().getId(), item.getBookedQty());
+                                inventoryCatalogueCache.itemChanged(item.getInventoryItem().getId());
                                 order.removeItem(item);
                         }
                 }
@@ -291,6 +316,7 @@ public class RentalOrderService {
 
                 order.setUpdatedAt(java.time.LocalDateTime.now()); // Force Envers revision
                 order = rentalOrderRepository.save(order);
+                inventoryCatalogueCache.orderChanged(order);
                 return toDTO(order);
         }
 
@@ -339,17 +365,13 @@ public class RentalOrderService {
                                                 + orderItem.getInventoryItem().getNameEnglish());
                         }
 
-                        // Check available stock
+                        // Take available stock atomically; fails if a concurrent dispatch got there first
                         InventoryItem invItem = orderItem.getInventoryItem();
-                        if (invItem.getAvailableStock() < qtyToDispatch) {
+                        if (inventoryItemRepository.decrementAvailableStock(invItem.getId(), qtyToDispatch) == 0) {
                                 throw new RuntimeException(
                                                 "Insufficient available stock for: " + invItem.getNameEnglish());
                         }
 
-                        // Update inventory available stock
-                        invItem.setAvailableStock(invItem.getAvailableStock() - qtyToDispatch);
-                        inventoryItemRepository.save(invItem);
-
                         // Update order item aggregate
                         orderItem.setDispatchedQty(orderItem.getDispatchedQty() + qtyToDispatch);
                         orderItem.setDispatchDate(dispatchDate);
@@ -368,6 +390,7 @@ public class RentalOrderService {
                 order.setStatus(RentalOrder.RentalOrderStatus.DISPATCHED);
                 order.setUpdatedAt(java.time.LocalDateTime.now()); // Force Envers revision
                 order = rentalOrderRepository.save(order);
+                inventoryCatalogueCache.orderChanged(order);
 
                 return toDTO(order);
         }
@@ -420,8 +443,10 @@ public class RentalOrderService {
 
                         // Update inventory available stock
                         InventoryItem invItem = orderItem.getInventoryItem();
-                        invItem.setAvailableStock(invItem.getAvailableStock() + qtyToReturn);
-                        inventoryItemRepository.save(invItem);
+                        inventoryItemRepository.adjustAvailableStock(invItem.getId(), qtyToReturn);
+
+                        // Returned items are no longer committed
+                        atpLedger.release(invItem.getId(), qtyToReturn);
 
                         // Update order item aggregate
                         orderItem.setReturnedQty(orderItem.getReturnedQty() + qtyToReturn);
@@ -451,11 +476,260 @@ public class RentalOrderService {
                                 : RentalOrder.RentalOrderStatus.PARTIALLY_RETURNED);
                 order.setUpdatedAt(java.time.LocalDateTime.now()); // Force Envers revision
                 order = rentalOrderRepository.save(order);
+                inventoryCatalogueCache.orderChanged(order);
 
                 log.info("Receive complete for orderId={}, status={}", orderId, order.getStatus());
                 return toDTO(order);
         }
 
+        /**
+         * Apply one dispatch or return voucher across many orders, e.g. a
+         * truck loaded for several customers. Lines are checked exactly as
+         * {@link #dispatchItems} and {@link #receiveItems} check them, stock
+         * moves in one statement for all items, and the voucher rows are
+         * batch-inserted. Any failure rolls back every order.
+         */
+        public List<com.mandap.dto.BulkVoucherResultDTO> applyBulkVoucher(com.mandap.dto.BulkVoucherDTO dto) {
+                RentalOrderTransaction.TransactionType type;
+                try {
+                        type = RentalOrderTransaction.TransactionType.valueOf(String.valueOf(dto.getType()));
+                } catch (IllegalArgumentException e) {
+                        throw new RuntimeException("Voucher type must be DISPATCH or RETURN: " + dto.getType());
+                }
+                List<RentalOrderTransactionDTO> entries = dto.getOrders() != null ? dto.getOrders() : List.of();
+                if (entries.isEmpty()) {
+                        throw new RuntimeException("No orders given for voucher");
+                }
+                if (entries.size() > BULK_VOUCHER_MAX_ORDERS) {
+                        throw new RuntimeException("At most " + BULK_VOUCHER_MAX_ORDERS + " orders per voucher");
+                }
+                java.util.Set<Long> orderIds = new java.util.LinkedHashSet<>();
+                for (RentalOrderTransactionDTO entry : entries) {
+                        if (entry.getRentalOrderId() == null || !orderIds.add(entry.getRentalOrderId())) {
+                                throw new RuntimeException("Each order must appear once: " + entry.getRentalOrderId());
+                        }
+                }
+                java.util.Map<Long, RentalOrder> orders = new java.util.HashMap<>();
+                for (RentalOrder order : rentalOrderRepository.findAllWithDetailsByIdIn(orderIds)) {
+                        orders.put(order.getId(), order);
+                }
+                LocalDate today = LocalDate.now();
+                // Stock change per inventory item over all orders, in id order so
+                // concurrent vouchers lock rows in the same order
+                java.util.Map<Long, Integer> stockDeltas = new java.util.TreeMap<>();
+                java.util.Map<Long, String> itemNames = new java.util.HashMap<>();
+                List<BulkLines> vouchers = new java.util.ArrayList<>();
+
+                for (RentalOrderTransactionDTO entry : entries) {
+                        RentalOrder order = orders.get(entry.getRentalOrderId());
+                        if (order == null) {
+                                throw new RuntimeException("Rental order not found: " + entry.getRentalOrderId());
+                        }
+                        checkVoucherStatus(order, type);
+
+                        BulkLines lines = new BulkLines(order, entry);
+                        for (RentalOrderItemDTO line : entry.getItems() != null ? entry.getItems()
+                                        : List.<RentalOrderItemDTO>of()) {
+                                Integer qty = type == RentalOrderTransaction.TransactionType.DISPATCH
+                                                ? line.getDispatchedQty()
+                                                : line.getReturnedQty();
+                                if (qty == null || qty <= 0) {
+                                        continue;
+                                }
+
+                                RentalOrderItem orderItem = order.getItems().stream()
+                                                .filter(i -> i.getInventoryItem().getId()
+                                                                .equals(line.getInventoryItemId()))
+                                                .findFirst()
+                                                .orElseThrow(
+                                                                () -> new RuntimeException("Item not found in order: "
+                                                                                + line.getInventoryItemId()));
+
+                                InventoryItem invItem = orderItem.getInventoryItem();
+                                if (type == RentalOrderTransaction.TransactionType.DISPATCH) {
+                                        if (qty > orderItem.getBookedQty() - orderItem.getDispatchedQty()) {
+                                                throw new RuntimeException(
+                                                                "Cannot dispatch more than booked quantity for item: "
+                                                                                + invItem.getNameEnglish());
+                                        }
+                                        orderItem.setDispatchedQty(orderItem.getDispatchedQty() + qty);
+                                        orderItem.setDispatchDate(today);
+                                        stockDeltas.merge(invItem.getId(), -qty, Integer::sum);
+                                } else {
+                                        if (qty > orderItem.getDispatchedQty() - orderItem.getReturnedQty()) {
+                                                throw new RuntimeException(
+                                                                "Cannot return more than outstanding quantity for item: "
+                                                                                + invItem.getNameEnglish());
+                                        }
+                                        orderItem.setReturnedQty(orderItem.getReturnedQty() + qty);
+                                        orderItem.setReturnDate(today);
+                                        stockDeltas.merge(invItem.getId(), qty, Integer::sum);
+                                }
+                                itemNames.put(invItem.getId(), invItem.getNameEnglish());
+                                lines.itemIds.add(invItem.getId());
+                                lines.quantities.add(qty);
+                        }
+
+                        if (type == RentalOrderTransaction.TransactionType.DISPATCH) {
+                                order.setDispatchDate(today);
+                                order.setStatus(RentalOrder.RentalOrderStatus.DISPATCHED);
+                        } else {
+                                boolean allReturned = order.getItems().stream()
+                                                .allMatch(item -> item.getDispatchedQty() <= item.getReturnedQty());
+                                order.setActualReturnDate(today);
+                                order.setStatus(allReturned ? RentalOrder.RentalOrderStatus.RETURNED
+                                                : RentalOrder.RentalOrderStatus.PARTIALLY_RETURNED);
+                        }
+                        order.setUpdatedAt(LocalDateTime.now()); // Force Envers revision
+                        vouchers.add(lines);
+                }
+
+                applyStockDeltas(stockDeltas, itemNames);
+                if (type == RentalOrderTransaction.TransactionType.RETURN) {
+                        // Returned items are no longer committed
+                        stockDeltas.forEach(atpLedger::release);
+                }
+                insertVouchers(type, dto, vouchers, today);
+
+                List<com.mandap.dto.BulkVoucherResultDTO> results = new java.util.ArrayList<>();
+                for (BulkLines lines : vouchers) {
+                        inventoryCatalogueCache.orderChanged(lines.order);
+                        results.add(com.mandap.dto.BulkVoucherResultDTO.builder()
+                                        .rentalOrderId(lines.order.getId())
+                                        .orderNumber(lines.order.getOrderNumber())
+                                        .status(lines.order.getStatus().name())
+                                        .transactionId(lines.transactionId)
+                                        .lines(lines.itemIds.size())
+                                        .quantity(lines.quantities.stream().mapToInt(Integer::intValue).sum())
+                                        .build());
+                }
+                log.info("Bulk {} voucher={} applied: orders={}, items={}", type, dto.getVoucherNumber(),
+                                results.size(), stockDeltas.size());
+                return results;
+        }
+
+        private void checkVoucherStatus(RentalOrder order, RentalOrderTransaction.TransactionType type) {
+                RentalOrder.RentalOrderStatus status = order.getStatus();
+                if (status == RentalOrder.RentalOrderStatus.COMPLETED
+                                || status == RentalOrder.RentalOrderStatus.CANCELLED) {
+                        throw new RuntimeException("Cannot " + (type == RentalOrderTransaction.TransactionType.DISPATCH
+                                        ? "dispatch" : "receive") + " items for order " + order.getOrderNumber()
+                                        + " in status: " + status);
+                }
+                if (type == RentalOrderTransaction.TransactionType.RETURN
+                                && status == RentalOrder.RentalOrderStatus.BOOKED) {
+                        throw new RuntimeException("Cannot receive items for order " + order.getOrderNumber()
+                                        + " in status: " + status);
+                }
+        }
+
+        /**
+         * Move all stock with a single UPDATE whose WHERE clause skips any row
+         * the delta would take below zero; fewer updated rows than items means
+         * a dispatch was short, and the caller's transaction rolls back.
+         */
+        private void applyStockDeltas(java.util.Map<Long, Integer> stockDeltas, java.util.Map<Long, String> itemNames) {
+                if (stockDeltas.isEmpty()) {
+                        return;
+                }
+                List<Long> ids = new java.util.ArrayList<>(stockDeltas.keySet());
+                String in = String.join(", ", java.util.Collections.nCopies(ids.size(), "?"));
+                List<Object> caseArgs = new java.util.ArrayList<>();
+                StringBuilder cases = new StringBuilder();
+                for (Long id : ids) {
+                        cases.append(" WHEN ? THEN ?");
+                        caseArgs.add(id);
+                        caseArgs.add(stockDeltas.get(id));
+                }
+                String delta = "CASE id" + cases + " END";
+
+                List<Object> args = new java.util.ArrayList<>(caseArgs);
+                args.add(java.sql.Timestamp.valueOf(LocalDateTime.now()));
+                args.addAll(ids);
+                args.addAll(caseArgs);
+                int updated = jdbcTemplate.update("UPDATE inventory_items SET available_stock = available_stock + "
+                                + delta + ", updated_at = ? WHERE id IN (" + in + ") AND available_stock + " + delta
+                                + " >= 0", args.toArray());
+                if (updated == ids.size()) {
+                        return;
+                }
+
+                // Name the first item still short; the updated rows roll back with the caller
+                java.util.Map<Long, Integer> available = new java.util.TreeMap<>();
+                jdbcTemplate.query("SELECT id, available_stock FROM inventory_items WHERE id IN (" + in + ")", rs -> {
+                        available.put(rs.getLong(1), rs.getInt(2));
+                }, ids.toArray());
+                Long shortId = available.entrySet().stream()
+                                .filter(row -> row.getValue() + stockDeltas.get(row.getKey()) < 0)
+                                .map(java.util.Map.Entry::getKey)
+                                .findFirst()
+                                .orElseThrow(() -> new RuntimeException("Insufficient available stock"));
+                throw new RuntimeException("Insufficient available stock for: " + itemNames.get(shortId));
+        }
+
+        /**
+         * Batch-insert one voucher header per order, then all voucher lines.
+         */
+        private void insertVouchers(RentalOrderTransaction.TransactionType type, com.mandap.dto.BulkVoucherDTO dto,
+                        List<BulkLines> vouchers, LocalDate transactionDate) {
+                java.sql.Timestamp now = java.sql.Timestamp.valueOf(LocalDateTime.now());
+                org.springframework.jdbc.support.KeyHolder keys = new org.springframework.jdbc.support.GeneratedKeyHolder();
+                jdbcTemplate.batchUpdate(con -> con.prepareStatement("INSERT INTO rental_order_transactions "
+                                + "(rental_order_id, type, voucher_number, vehicle_number, transaction_date, created_at) "
+                                + "VALUES (?, ?, ?, ?, ?, ?)", new String[] { "id" }),
+                                new org.springframework.jdbc.core.BatchPreparedStatementSetter() {
+                                        @Override
+                                        public void setValues(java.sql.PreparedStatement ps, int i)
+                                                        throws java.sql.SQLException {
+                                                BulkLines lines = vouchers.get(i);
+                                                ps.setLong(1, lines.order.getId());
+                                                ps.setString(2, type.name());
+                                                ps.setString(3, lines.entry.getVoucherNumber() != null
+                                                                ? lines.entry.getVoucherNumber()
+                                                                : dto.getVoucherNumber());
+                                                ps.setString(4, lines.entry.getVehicleNumber() != null
+                                                                ? lines.entry.getVehicleNumber()
+                                                                : dto.getVehicleNumber());
+                                                ps.setObject(5, transactionDate);
+                                                ps.setTimestamp(6, now);
+                                        }
+
+                                        @Override
+                                        public int getBatchSize() {
+                                                return vouchers.size();
+                                        }
+                                }, keys);
+
+                List<Object[]> itemRows = new java.util.ArrayList<>();
+                List<java.util.Map<String, Object>> keyList = keys.getKeyList();
+                for (int i = 0; i < vouchers.size(); i++) {
+                        BulkLines lines = vouchers.get(i);
+                        lines.transactionId = ((Number) keyList.get(i).values().iterator().next()).longValue();
+                        for (int j = 0; j < lines.itemIds.size(); j++) {
+                                itemRows.add(new Object[] { lines.transactionId, lines.itemIds.get(j),
+                                                lines.quantities.get(j) });
+                        }
+                }
+                if (!itemRows.isEmpty()) {
+                        jdbcTemplate.batchUpdate("INSERT INTO rental_order_transaction_items "
+                                        + "(transaction_id, inventory_item_id, quantity) VALUES (?, ?, ?)", itemRows);
+                }
+        }
+
+        /** One order's share of a bulk voucher. */
+        private static final class BulkLines {
+                private final RentalOrder order;
+                private final RentalOrderTransactionDTO entry;
+                private final List<Long> itemIds = new java.util.ArrayList<>();
+                private final List<Integer> quantities = new java.util.ArrayList<>();
+                private Long transactionId;
+
+                private BulkLines(RentalOrder order, RentalOrderTransactionDTO entry) {
+                        this.order = order;
+                        this.entry = entry;
+                }
+        }
+
         /**
          * Get unreturned items for a customer (for billing warning).
          */
@@ -474,23 +748,114 @@ public class RentalOrderService {
                                 .collect(Collectors.toList());
         }
 
-        private synchronized String generateOrderNumber() {
+        /**
+         * Load every inventory item referenced by the given lines in a single query.
+         * Without the ATP ledger the rows are locked until commit, so concurrent
+         * bookings of the same items, on any app instance, validate one at a time.
+         */
+        private java.util.Map<Long, InventoryItem> loadInventoryItems(List<RentalOrderItemDTO> itemDtos) {
+                java.util.Set<Long> ids = new java.util.HashSet<>();
+                for (RentalOrderItemDTO itemDto : itemDtos) {
+                        if (itemDto.getInventoryItemId() == null) {
+                                throw new RuntimeException("Inventory item not found: null");
+                        }
+                        ids.add(itemDto.getInventoryItemId());
+                }
+
+                List<InventoryItem> loaded = atpLedger.isEnabled() ? inventoryItemRepository.findAllById(ids)
+                                : inventoryItemRepository.findAllByIdForUpdate(ids);
+                java.util.Map<Long, InventoryItem> inventoryItems = loaded.stream()
+                                .collect(Collectors.toMap(InventoryItem::getId, i -> i));
+                for (Long id : ids) {
+                        if (!inventoryItems.containsKey(id)) {
+                                throw new RuntimeException("Inventory item not found: " + id);
+                        }
+                }
+                return inventoryItems;
+        }
+
+        /**
+         * Committed quantity (Booked - Returned) per inventory item across all active
+         * orders other than the given one. Served by the ATP ledger when enabled,
+         * otherwise by one grouped query.
+         */
+        private java.util.Map<Long, Integer> loadCommittedByOthers(RentalOrder order,
+                        java.util.Collection<Long> inventoryItemIds) {
+                java.util.Map<Long, Integer> committed = new java.util.HashMap<>();
+                if (inventoryItemIds.isEmpty()) {
+                        return committed;
+                }
+
+                if (atpLedger.isEnabled()) {
+                        for (Long id : inventoryItemIds) {
+                                committed.put(id, atpLedger.getCommitted(id));
+                        }
+                        if (order != null) {
+                                for (RentalOrderItem item : order.getItems()) {
+                                        int held = item.getBookedQty()
+                                                        - (item.getReturnedQty() != null ? item.getReturnedQty() : 0);
+                                        committed.computeIfPresent(item.getInventoryItem().getId(),
+                                                        (id, qty) -> qty - held);
+                                }
+                        }
+                        return committed;
+                }
+
+                for (Object[] row : rentalOrderItemRepository.getCommittedQuantities(inventoryItemIds,
+                                order != null ? order.getId() : null)) {
+                        committed.put((Long) row[0], ((Number) row[1]).intValue());
+                }
+                return committed;
+        }
+
+        /**
+         * Reserve a change in booked quantity. With the ATP ledger the reservation is
+         * atomic; otherwise the precomputed new committed total is checked directly.
+         */
+        private boolean reserveStock(InventoryItem invItem, int delta, int newCommitted) {
+                if (atpLedger.isEnabled()) {
+                        return atpLedger.tryReserve(invItem.getId(), delta, invItem.getTotalStock());
+                }
+                return delta <= 0 || newCommitted <= invItem.getTotalStock();
+        }
+
+        private String generateOrderNumber() {
                 String prefix = "RO-" + Year.now().getValue() + "-";
 
-                return rentalOrderRepository.findFirstByOrderNumberStartingWithOrderByIdDesc(prefix)
-                                .map(lastOrder -> {
-                                        try {
-                                                String numPart = lastOrder.getOrderNumber().substring(prefix.length());
-                                                int nextNum = Integer.parseInt(numPart) + 1;
-                                                return prefix + String.format("%04d", nextNum);
-                                        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-                                                return prefix + "0001"; // Fallback
-                                        }
-                                })
-                                .orElse(prefix + "0001");
+                long nextNumber = numberSequenceService.next(prefix, () -> {
+                        Integer maxNumber = rentalOrderRepository.findMaxOrderNumberForPrefix(prefix);
+                        return maxNumber != null ? maxNumber : 0;
+                });
+                return prefix + String.format("%04d", nextNumber);
         }
 
         private RentalOrderDTO toDTO(RentalOrder order) {
+                return toDTO(order, rentalOrderTransactionRepository
+                                .findByRentalOrderIdOrderByTransactionDateDesc(order.getId()));
+        }
+
+        /**
+         * Map a list of orders loaded with their customer and items, fetching voucher
+         * history for all of them in one query when requested.
+         */
+        private List<RentalOrderDTO> toDTOs(List<RentalOrder> orders, boolean includeTransactions) {
+                java.util.Map<Long, List<RentalOrderTransaction>> transactionsByOrder = new java.util.HashMap<>();
+                if (includeTransactions && !orders.isEmpty()) {
+                        List<Long> orderIds = orders.stream().map(RentalOrder::getId).collect(Collectors.toList());
+                        transactionsByOrder = rentalOrderTransactionRepository.findByRentalOrderIdsWithItems(orderIds)
+                                        .stream()
+                                        .collect(Collectors.groupingBy(t -> t.getRentalOrder().getId()));
+                }
+
+                java.util.Map<Long, List<RentalOrderTransaction>> finalTransactionsByOrder = transactionsByOrder;
+                return orders.stream()
+                                .map(order -> toDTO(order, includeTransactions
+                                                ? finalTransactionsByOrder.getOrDefault(order.getId(), List.of())
+                                                : null))
+                                .collect(Collectors.toList());
+        }
+
+        private RentalOrderDTO toDTO(RentalOrder order, List<RentalOrderTransaction> transactions) {
                 return RentalOrderDTO.builder()
                                 .id(order.getId())
                                 .orderNumber(order.getOrderNumber())
@@ -507,10 +872,9 @@ public class RentalOrderService {
                                 .billOutOfSync(order.isBillOutOfSync())
                                 .remarks(order.getRemarks())
                                 .items(order.getItems().stream().map(this::toItemDTO).collect(Collectors.toList()))
-                                .transactions(rentalOrderTransactionRepository
-                                                .findByRentalOrderIdOrderByTransactionDateDesc(order.getId()).stream()
+                                .transactions(transactions != null ? transactions.stream()
                                                 .map(this::toTransactionDTO)
-                                                .collect(Collectors.toList()))
+                                                .collect(Collectors.toList()) : null)
                                 .build();
         }
 
@@ -568,6 +932,11 @@ public class RentalOrderService {
                 }
 
                 log.warn("Deleting rental order id={}, orderNumber={}", id, order.getOrderNumber());
+                if (order.getStatus() != RentalOrder.RentalOrderStatus.CANCELLED
+                                && order.getStatus() != RentalOrder.RentalOrderStatus.COMPLETED) {
+                        atpLedger.releaseOrder(order);
+                }
+                inventoryCatalogueCache.orderChanged(order);
                 rentalOrderRepository.delete(order);
         }
 
@@ -598,92 +967,117 @@ public class RentalOrderService {
                 }
 
                 order.setStatus(RentalOrder.RentalOrderStatus.CANCELLED);
+                atpLedger.releaseOrder(order);
+                inventoryCatalogueCache.orderChanged(order);
                 order = rentalOrderRepository.save(order);
                 log.info("Rental order cancelled: orderNumber={}", order.getOrderNumber());
                 return toDTO(order);
         }
 
-        public List<com.mandap.dto.RentalOrderAuditDTO> getRentalOrderAuditHistory(Long id) {
-                if (id == null)
-                        return new java.util.ArrayList<>();
+        /**
+         * One page of an order's audit history, newest first. Busy orders have
+         * hundreds of dispatch/return revisions, so only the page plus the
+         * revision before it is loaded, and the full order snapshot (which
+         * also reads voucher history) is built only on request. With
+         * includeArchived, revisions moved to the audit archive by compaction
+         * follow the live ones, read from the archive without restoring them.
+         */
+        public com.mandap.dto.PageDTO<com.mandap.dto.RentalOrderAuditDTO> getRentalOrderAuditHistory(Long id,
+                        Integer page, Integer size, boolean includeEntity, boolean includeArchived) {
+                AuditPage<RentalOrder> auditPage = AuditPage.load(rentalOrderRepository, id, page, size);
+                List<AuditRevision> revisions = new java.util.ArrayList<>();
+                for (org.springframework.data.history.Revision<Integer, RentalOrder> revision : auditPage
+                                .oldestFirst()) {
+                        revisions.add(new AuditRevision(revision.getRequiredRevisionNumber(),
+                                        java.time.LocalDateTime.ofInstant(revision.getRequiredRevisionInstant(),
+                                                        java.time.ZoneId.systemDefault()),
+                                        revision.getMetadata()
+                                                        .getRevisionType() == org.springframework.data.history.RevisionMetadata.RevisionType.INSERT,
+                                        ((com.mandap.entity.AuditRevisionEntity) revision.getMetadata().getDelegate())
+                                                        .getUsername(),
+                                        revision.getEntity()));
+                }
+
+                List<AuditArchiveService.ArchivedRevision> archived = includeArchived
+                                ? auditArchiveService.rentalOrderRevisions(id)
+                                : List.of();
+                if (archived.isEmpty()) {
+                        return auditPage.toDTO(toAuditDTOs(revisions, auditPage.priorState(), includeEntity));
+                }
+
+                // Archived revisions all precede the live ones, so newest first they
+                // continue where the live history ends
+                long start = (long) auditPage.pageIndex() * auditPage.pageSize();
+                long liveTotal = auditPage.totalElements();
+                int skipArchived = (int) Math.max(0, start - liveTotal);
+                int takeArchived = auditPage.pageSize() - revisions.size();
+                int to = Math.max(0, archived.size() - skipArchived);
+                int from = Math.max(0, to - takeArchived);
+                List<AuditRevision> older = new java.util.ArrayList<>();
+                for (AuditArchiveService.ArchivedRevision revision : archived.subList(from, to)) {
+                        older.add(new AuditRevision(revision.revision(), revision.date(), revision.insert(),
+                                        revision.changedBy(), revision.state()));
+                }
+                revisions.addAll(0, older);
+                RentalOrder priorState = start + auditPage.pageSize() < liveTotal ? auditPage.priorState()
+                                : from > 0 ? archived.get(from - 1).state() : null;
+
+                List<com.mandap.dto.RentalOrderAuditDTO> items = toAuditDTOs(revisions, priorState, includeEntity);
+                java.util.Collections.reverse(items);
+                long total = liveTotal + archived.size();
+                return com.mandap.dto.PageDTO.<com.mandap.dto.RentalOrderAuditDTO>builder()
+                                .items(items)
+                                .page(auditPage.pageIndex())
+                                .size(auditPage.pageSize())
+                                .totalElements(total)
+                                .hasMore(start + auditPage.pageSize() < total)
+                                .build();
+        }
+
+        /** A revision of an order, live from Envers or read from the audit archive. */
+        private record AuditRevision(int number, java.time.LocalDateTime date, boolean insert, String changedBy,
+                        RentalOrder state) {
+        }
 
-                org.springframework.data.history.Revisions<Integer, RentalOrder> revisions = rentalOrderRepository
-                                .findRevisions(id);
+        // Entries for revisions given oldest first, each diffed against the one before
+        private List<com.mandap.dto.RentalOrderAuditDTO> toAuditDTOs(List<AuditRevision> revisions,
+                        RentalOrder previousState, boolean includeEntity) {
                 List<com.mandap.dto.RentalOrderAuditDTO> auditList = new java.util.ArrayList<>();
-                RentalOrder previousState = null;
+                AuditFieldTable<RentalOrder>.Walker walker = AuditFields.RENTAL_ORDER.walker();
+                walker.start(previousState);
 
-                for (org.springframework.data.history.Revision<Integer, RentalOrder> revision : revisions) {
-                        RentalOrder currentState = revision.getEntity();
+                for (AuditRevision revision : revisions) {
+                        RentalOrder currentState = revision.state();
                         java.util.Map<String, com.mandap.dto.FieldChangeDTO> changes = new java.util.HashMap<>();
 
-                        if (previousState == null) {
-                                boolean isInsert = revision.getMetadata()
-                                                .getRevisionType() == org.springframework.data.history.RevisionMetadata.RevisionType.INSERT;
-                                if (isInsert) {
+                        if (!walker.hasPrevious()) {
+                                if (revision.insert()) {
                                         changes.put("Status", new com.mandap.dto.FieldChangeDTO(null, "Order created"));
                                 } else {
                                         changes.put("Status", new com.mandap.dto.FieldChangeDTO(null,
                                                         "Existing order updated (First tracked change)"));
-                                        addOrderHeaderSnapshot(currentState, changes);
+                                        AuditFields.RENTAL_ORDER.snapshot(currentState, changes);
                                 }
-                        } else {
-                                findOrderHeaderChanges(previousState, currentState, changes);
                         }
+                        walker.next(currentState, changes);
 
                         // Track items added/removed/updated
                         findOrderItemChanges(previousState, currentState, changes);
 
                         auditList.add(com.mandap.dto.RentalOrderAuditDTO.builder()
-                                        .revisionNumber(revision.getRequiredRevisionNumber())
-                                        .revisionDate(java.time.LocalDateTime.ofInstant(
-                                                        revision.getRequiredRevisionInstant(),
-                                                        java.time.ZoneId.systemDefault()))
-                                        .action(revision.getMetadata()
-                                                        .getRevisionType() == org.springframework.data.history.RevisionMetadata.RevisionType.INSERT
-                                                                        ? "CREATE"
-                                                                        : "UPDATE")
-                                        .changedBy(((com.mandap.entity.AuditRevisionEntity) revision.getMetadata()
-                                                        .getDelegate()).getUsername())
+                                        .revisionNumber(revision.number())
+                                        .revisionDate(revision.date())
+                                        .action(revision.insert() ? "CREATE" : "UPDATE")
+                                        .changedBy(revision.changedBy())
                                         .changes(changes)
-                                        .entity(toDTO(currentState))
+                                        .entity(includeEntity ? toDTO(currentState) : null)
                                         .build());
 
                         previousState = currentState;
                 }
-
-                java.util.Collections.reverse(auditList);
                 return auditList;
         }
 
-        private void addOrderHeaderSnapshot(RentalOrder order,
-                        java.util.Map<String, com.mandap.dto.FieldChangeDTO> changes) {
-                changes.put("Order Date", new com.mandap.dto.FieldChangeDTO(null, order.getOrderDate()));
-                changes.put("Expected Return", new com.mandap.dto.FieldChangeDTO(null, order.getExpectedReturnDate()));
-                changes.put("Status", new com.mandap.dto.FieldChangeDTO(null, order.getStatus().name()));
-                changes.put("Remarks", new com.mandap.dto.FieldChangeDTO(null, order.getRemarks()));
-        }
-
-        private void findOrderHeaderChanges(RentalOrder oldOrder, RentalOrder newOrder,
-                        java.util.Map<String, com.mandap.dto.FieldChangeDTO> changes) {
-                if (!java.util.Objects.equals(oldOrder.getOrderDate(), newOrder.getOrderDate())) {
-                        changes.put("Order Date", new com.mandap.dto.FieldChangeDTO(oldOrder.getOrderDate(),
-                                        newOrder.getOrderDate()));
-                }
-                if (!java.util.Objects.equals(oldOrder.getExpectedReturnDate(), newOrder.getExpectedReturnDate())) {
-                        changes.put("Expected Return",
-                                        new com.mandap.dto.FieldChangeDTO(oldOrder.getExpectedReturnDate(),
-                                                        newOrder.getExpectedReturnDate()));
-                }
-                if (!java.util.Objects.equals(oldOrder.getStatus(), newOrder.getStatus())) {
-                        changes.put("Status", new com.mandap.dto.FieldChangeDTO(oldOrder.getStatus().name(),
-                                        newOrder.getStatus().name()));
-                }
-                if (!java.util.Objects.equals(oldOrder.getRemarks(), newOrder.getRemarks())) {
-                        changes.put("Remarks", new com.mandap.dto.FieldChangeDTO(oldOrder.getRemarks(),
-                                        newOrder.getRemarks()));
-                }
-        }
-
         private void findOrderItemChanges(RentalOrder oldOrder, RentalOrder newOrder,
                         java.util.Map<String, com.mandap.dto.FieldChangeDTO> changes) {
                 java.util.Map<Long, RentalOrderItem> oldItems = oldOrder == null ? new java.util.HashMap<>()
@@ -704,22 +1098,8 @@ public class RentalOrderService {
                                                 new com.mandap.dto.FieldChangeDTO(null,
                                                                 "Booked: " + newItem.getBookedQty()));
                         } else {
-                                // Check for quantity changes
-                                if (!java.util.Objects.equals(oldItem.getBookedQty(), newItem.getBookedQty())) {
-                                        changes.put("Qty Changed: " + newItem.getInventoryItem().getNameEnglish(),
-                                                        new com.mandap.dto.FieldChangeDTO(oldItem.getBookedQty(),
-                                                                        newItem.getBookedQty()));
-                                }
-                                if (!java.util.Objects.equals(oldItem.getDispatchedQty(), newItem.getDispatchedQty())) {
-                                        changes.put("Disp Qty: " + newItem.getInventoryItem().getNameEnglish(),
-                                                        new com.mandap.dto.FieldChangeDTO(oldItem.getDispatchedQty(),
-                                                                        newItem.getDispatchedQty()));
-                                }
-                                if (!java.util.Objects.equals(oldItem.getReturnedQty(), newItem.getReturnedQty())) {
-                                        changes.put("Ret Qty: " + newItem.getInventoryItem().getNameEnglish(),
-                                                        new com.mandap.dto.FieldChangeDTO(oldItem.getReturnedQty(),
-                                                                        newItem.getReturnedQty()));
-                                }
+                                AuditFields.RENTAL_ORDER_ITEM.diff(oldItem, newItem,
+                                                newItem.getInventoryItem().getNameEnglish(), changes);
                         }
                 }
 
@@ -5,6 +5,8 @@ import com.mandap.entity.Permission;
 import com.mandap.entity.Role;
 import com.mandap.repository.PermissionRepository;
 import com.mandap.repository.RoleRepository;
+import com.mandap.security.AuthorityVersionRegistry;
+import com.mandap.security.UserDetailsCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +26,12 @@ public class RoleService {
     @Autowired
     private PermissionRepository permissionRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private AuthorityVersionRegistry authorityVersionRegistry;
+
     public List<RoleDTO> getAllRoles() {
         return roleRepository.findAll().stream()
                 .map(this::toDTO)
@@ -77,11 +85,16 @@ public class RoleService {
         }
 
         role = roleRepository.save(role);
+        // Permissions of every user holding this role may have changed
+        userDetailsCache.evictAll();
+        authorityVersionRegistry.bumpAll();
         return toDTO(role);
     }
 
     public void deleteRole(Long id) {
         roleRepository.deleteById(id);
+        userDetailsCache.evictAll();
+        authorityVersionRegistry.bumpAll();
     }
 
     public List<Permission> getAllPermissions() {
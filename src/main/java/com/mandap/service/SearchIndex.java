@@ -0,0 +1,205 @@
+package com.mandap.service;
+
+import com.mandap.entity.Bill;
+import com.mandap.entity.Customer;
+import com.mandap.entity.InventoryItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process search over customers (name, mobile, pal numbers), bills (bill
+ * number, or any bill of a customer with a matching name) and inventory
+ * items (English and Gujarati names). Built from the database once the application is
+ * ready and then kept current from {@link EntityChangedEvent}s after each
+ * commit. Bulk writes that bypass the services call {@link #rebuild()}.
+ * Until the first build, or when disabled, the services fall back to their
+ * LIKE queries.
+ */
+@Slf4j
+@Service
+public class SearchIndex {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerIndexSource customerIndexSource;
+
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+
+    private volatile Indexes indexes;
+
+    /**
+     * Replaced as a whole on rebuild, so readers never see a partial build.
+     * customerNames holds the name alone, for the bill search.
+     */
+    private record Indexes(TrigramIndex customers, TrigramIndex customerNames, TrigramIndex bills,
+            TrigramIndex items,
+            Set<Long> inactiveCustomers, Set<Long> inactiveItems,
+            Map<Long, Long> billCustomers, Map<Long, Set<Long>> customerBills) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            log.info("Search index disabled, searches use LIKE queries");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Indexes rebuilt = new Indexes(new TrigramIndex(), new TrigramIndex(), new TrigramIndex(),
+                new TrigramIndex(), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(),
+                new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+        customerIndexSource.forEach(false, customer -> putCustomer(rebuilt, customer.id(), customer.name(),
+                customer.mobile(), customer.palNumbers(), customer.active()));
+        jdbcTemplate.query("SELECT id, bill_number, customer_id FROM bills", rs -> {
+            putBill(rebuilt, rs.getLong(1), rs.getString(2), rs.getLong(3));
+        });
+        jdbcTemplate.query("SELECT id, name_english, name_gujarati, active FROM inventory_items", rs -> {
+            putItem(rebuilt, rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4));
+        });
+
+        indexes = rebuilt;
+        log.info("Search index rebuilt in {} ms: customers={}, bills={}, items={}",
+                System.currentTimeMillis() - start, rebuilt.customers().size(), rebuilt.bills().size(),
+                rebuilt.items().size());
+    }
+
+    /**
+     * Rebuild once the current transaction commits, for bulk writes that
+     * publish no change events.
+     */
+    public void rebuildAfterCommit() {
+        customerIndexSource.afterCommit(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return enabled && indexes != null;
+    }
+
+    /** Active customers matching the query, best match first. */
+    public List<Long> searchCustomers(String query) {
+        Indexes current = indexes;
+        return current.customers().search(query, id -> !current.inactiveCustomers().contains(id));
+    }
+
+    /**
+     * Bills whose number matches, best match first, followed by the bills
+     * of customers whose name matches (active or not), newest first per
+     * customer. Mobile and pal numbers are not searched, as in the LIKE query.
+     */
+    public List<Long> searchBills(String query) {
+        Indexes current = indexes;
+        Set<Long> ids = new LinkedHashSet<>(current.bills().search(query, id -> true));
+        for (Long customerId : current.customerNames().search(query, id -> true)) {
+            Set<Long> billIds = current.customerBills().get(customerId);
+            if (billIds != null) {
+                billIds.stream().sorted((a, b) -> Long.compare(b, a)).forEach(ids::add);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /** Active inventory items matching the query, best match first. */
+    public List<Long> searchInventoryItems(String query) {
+        Indexes current = indexes;
+        return current.items().search(query, id -> !current.inactiveItems().contains(id));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEntityChanged(EntityChangedEvent event) {
+        Indexes current = indexes;
+        if (current == null) {
+            return;
+        }
+        if (event.entity() instanceof Customer customer) {
+            if (event.removed()) {
+                current.customers().remove(customer.getId());
+                current.customerNames().remove(customer.getId());
+                return;
+            }
+            List<String> pals = customerIndexSource.palNumbers(customer, palNumbersOf(current, customer.getId()));
+            putCustomer(current, customer.getId(), customer.getName(), customer.getMobile(), pals,
+                    Boolean.TRUE.equals(customer.getActive()));
+        } else if (event.entity() instanceof Bill bill) {
+            if (event.removed()) {
+                removeBill(current, bill.getId());
+            } else {
+                putBill(current, bill.getId(), bill.getBillNumber(), bill.getCustomer().getId());
+            }
+        } else if (event.entity() instanceof InventoryItem item) {
+            if (event.removed()) {
+                current.items().remove(item.getId());
+            } else {
+                putItem(current, item.getId(), item.getNameEnglish(), item.getNameGujarati(),
+                        Boolean.TRUE.equals(item.getActive()));
+            }
+        }
+    }
+
+    private static void putCustomer(Indexes target, Long id, String name, String mobile, List<String> palNumbers,
+            boolean active) {
+        List<String> fields = new ArrayList<>();
+        fields.add(name);
+        fields.add(mobile);
+        fields.addAll(palNumbers);
+        target.customers().put(id, fields);
+        target.customerNames().put(id, Arrays.asList(name));
+        if (active) {
+            target.inactiveCustomers().remove(id);
+        } else {
+            target.inactiveCustomers().add(id);
+        }
+    }
+
+    // Indexed customer fields are name, mobile, then the pal numbers; null if not indexed
+    private static List<String> palNumbersOf(Indexes target, Long customerId) {
+        List<String> fields = target.customers().fields(customerId);
+        if (fields == null) {
+            return null;
+        }
+        return fields.size() > 2 ? fields.subList(2, fields.size()) : List.of();
+    }
+
+    private static void putBill(Indexes target, Long id, String billNumber, Long customerId) {
+        removeBill(target, id);
+        target.bills().put(id, List.of(billNumber));
+        target.billCustomers().put(id, customerId);
+        target.customerBills().computeIfAbsent(customerId, c -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static void removeBill(Indexes target, Long id) {
+        target.bills().remove(id);
+        Long customerId = target.billCustomers().remove(id);
+        if (customerId != null) {
+            Set<Long> billIds = target.customerBills().get(customerId);
+            if (billIds != null) {
+                billIds.remove(id);
+            }
+        }
+    }
+
+    private static void putItem(Indexes target, Long id, String nameEnglish, String nameGujarati, boolean active) {
+        target.items().put(id, Arrays.asList(nameEnglish, nameGujarati));
+        if (active) {
+            target.inactiveItems().remove(id);
+        } else {
+            target.inactiveItems().add(id);
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package com.mandap.service;
+
+import com.mandap.dto.SyntheticSeasonDTO;
+import com.mandap.repository.BillRepository;
+import com.mandap.repository.InventoryItemRepository;
+import com.mandap.repository.RentalOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Writes a synthetic season straight through JDBC batch inserts for load,
+ * scale and pagination testing: inventory items, customers with PAL numbers,
+ * rental orders in every status with dispatch/return vouchers, bills with
+ * deposits and payments for completed orders, and the Envers revisions the
+ * app would have recorded along the way. All randomness comes from the seed
+ * and all dates from the current season, so the same seed and sizes produce
+ * the same dataset on an empty database.
+ * Run it against an idle database: generated ids are read back after each
+ * batch and concurrent writers would be mixed in.
+ */
+@Slf4j
+@Service
+public class SyntheticSeasonGenerator {
+
+    public static final String REVISION_USERNAME = "synthetic_season";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int STOCK_PER_ITEM = 100_000;
+
+    private static final String[] CATEGORIES = { "MANDAP", "FURNITURE", "BEDDING", "KITCHEN", "UTENSILS",
+            "DECORATION", "MISCELLANEOUS" };
+
+    private static final String[] FIRST_NAMES = { "Amit", "Bhavesh", "Chirag", "Dinesh", "Hitesh", "Jayesh",
+            "Kalpesh", "Mahesh", "Nilesh", "Paresh", "Rakesh", "Suresh", "Tushar", "Vipul", "Yogesh", "Kiran",
+            "Meena", "Nita", "Rekha", "Sonal" };
+
+    private static final String[] LAST_NAMES = { "Patel", "Shah", "Desai", "Mehta", "Joshi", "Parmar", "Solanki",
+            "Chauhan", "Thakkar", "Trivedi", "Panchal", "Raval", "Modi", "Bhatt", "Vaghela" };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private RentalOrderRepository rentalOrderRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private InventoryCatalogueCache inventoryCatalogueCache;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private CustomerSuggestions customerSuggestions;
+
+    /**
+     * Generate one season.
+     *
+     * @param seed      random seed; the same seed gives the same data
+     * @param customers number of customers
+     * @param orders    number of rental orders, spread over random customers
+     * @param items     number of inventory items
+     */
+    @Transactional
+    public SyntheticSeasonDTO generate(long seed, int customers, int orders, int items) {
+        if (customers <= 0 || orders < 0 || items <= 0) {
+            throw new RuntimeException("Synthetic season needs at least one customer and one item");
+        }
+        long started = System.currentTimeMillis();
+        Random random = new Random(seed);
+        int year = Year.now().getValue();
+        LocalDate seasonStart = LocalDate.of(year, 1, 1);
+        Revisions revisions = new Revisions();
+
+        // Inventory, added in one catalogue revision
+        LocalDateTime catalogueAt = seasonStart.minusDays(2).atTime(9, 0);
+        BigDecimal[] rates = new BigDecimal[items];
+        List<Object[]> itemRows = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            rates[i] = BigDecimal.valueOf(10 + random.nextInt(500));
+            itemRows.add(new Object[] { "Item " + (i + 1), "Item " + (i + 1), rates[i],
+                    CATEGORIES[i % CATEGORIES.length], i + 1, STOCK_PER_ITEM, STOCK_PER_ITEM,
+                    ts(catalogueAt), ts(catalogueAt) });
+        }
+        List<Long> itemIds = insertAll("inventory_items",
+                "INSERT INTO inventory_items (name_gujarati, name_english, default_rate, category, display_order, "
+                        + "total_stock, available_stock, active, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, true, ?, ?)",
+                itemRows);
+        int catalogueRevision = revisions.add(catalogueAt);
+        for (int i = 0; i < items; i++) {
+            Object[] row = itemRows.get(i);
+            revisions.row(catalogueRevision, "INSERT INTO inventory_items_aud (rev, revtype, "
+                    + InventoryItemRepository.AUDIT_COLUMNS + ") VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, true, ?, ?)",
+                    itemIds.get(i), row[0], row[1], row[2], row[3], row[4], row[5], row[6], row[7], row[8]);
+        }
+
+        // Customers with one or two PAL numbers, one revision each
+        List<Object[]> customerRows = new ArrayList<>();
+        List<List<String>> palNumbers = new ArrayList<>();
+        long customerBase = maxId("customers");
+        for (int i = 1; i <= customers; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            LocalDateTime createdAt = seasonStart.minusDays(1).atTime(9, 0).plusSeconds(i);
+            customerRows.add(new Object[] { name, String.valueOf(9_000_000_000L + customerBase + i),
+                    ts(createdAt), ts(createdAt) });
+            List<String> pals = new ArrayList<>();
+            pals.add("P" + (customerBase + i));
+            if (random.nextInt(4) == 0) {
+                pals.add("P" + (customerBase + i) + "B");
+            }
+            palNumbers.add(pals);
+        }
+        List<Long> customerIds = insertAll("customers",
+                "INSERT INTO customers (name, mobile, active, created_at, updated_at) VALUES (?, ?, true, ?, ?)",
+                customerRows);
+        List<Object[]> palRows = new ArrayList<>();
+        for (int c = 0; c < customers; c++) {
+            Object[] row = customerRows.get(c);
+            int revision = revisions.add(((Timestamp) row[2]).toLocalDateTime());
+            revisions.row(revision, "INSERT INTO customers_aud (rev, revtype, id, name, mobile, active, created_at, "
+                    + "updated_at) VALUES (?, 0, ?, ?, ?, true, ?, ?)",
+                    customerIds.get(c), row[0], row[1], row[2], row[3]);
+            for (String pal : palNumbers.get(c)) {
+                palRows.add(new Object[] { customerIds.get(c), pal });
+                revisions.row(revision, "INSERT INTO customer_pal_numbers_aud (rev, revtype, customer_id, "
+                        + "pal_number) VALUES (?, 0, ?, ?)", customerIds.get(c), pal);
+            }
+        }
+        batch("INSERT INTO customer_pal_numbers (customer_id, pal_number) VALUES (?, ?)", palRows);
+
+        // Plan orders, lines and payments up front so the random sequence
+        // does not depend on generated ids
+        List<OrderPlan> plans = new ArrayList<>();
+        int completedOrders = 0;
+        for (int o = 0; o < orders; o++) {
+            OrderPlan plan = new OrderPlan();
+            plan.customer = random.nextInt(customers);
+            plan.status = pickStatus(random);
+            plan.orderDate = seasonStart.plusDays(random.nextInt(300));
+            plan.createdAt = plan.orderDate.atTime(8 + random.nextInt(12), random.nextInt(60), random.nextInt(60));
+            for (int itemIndex : distinctItems(random, items, 3 + random.nextInt(6))) {
+                int booked = 1 + random.nextInt(50);
+                int dispatched = plan.isDispatched() ? booked : 0;
+                int returned = switch (plan.status) {
+                    case "PARTIALLY_RETURNED" -> booked / 2;
+                    case "RETURNED", "COMPLETED" -> booked;
+                    default -> 0;
+                };
+                plan.lines.add(new int[] { itemIndex, booked, dispatched, returned });
+            }
+            if (plan.status.equals("COMPLETED")) {
+                completedOrders++;
+                plan.payments = random.nextInt(3);
+                plan.paymentDivisors = new int[plan.payments];
+                for (int p = 0; p < plan.payments; p++) {
+                    plan.paymentDivisors[p] = 2 + random.nextInt(2);
+                }
+            }
+            plans.add(plan);
+        }
+
+        // Orders
+        String orderPrefix = "RO-" + year + "-";
+        long firstOrderNumber = numberSequenceService.reserveRange(orderPrefix, orders, () -> {
+            Integer maxNumber = rentalOrderRepository.findMaxOrderNumberForPrefix(orderPrefix);
+            return maxNumber != null ? maxNumber : 0;
+        });
+        List<Object[]> orderRows = new ArrayList<>();
+        for (int o = 0; o < orders; o++) {
+            OrderPlan plan = plans.get(o);
+            plan.orderNumber = orderPrefix + String.format("%04d", firstOrderNumber + o);
+            orderRows.add(new Object[] { plan.orderNumber, customerIds.get(plan.customer), plan.orderDate,
+                    plan.dispatchDate(), plan.orderDate.plusDays(3), plan.status, ts(plan.createdAt),
+                    ts(plan.closedAt()) });
+        }
+        List<Long> orderIds = insertAll("rental_orders",
+                "INSERT INTO rental_orders (order_number, customer_id, order_date, dispatch_date, "
+                        + "expected_return_date, status, bill_out_of_sync, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?)",
+                orderRows);
+
+        List<Object[]> lineRows = new ArrayList<>();
+        for (int o = 0; o < orders; o++) {
+            OrderPlan plan = plans.get(o);
+            plan.id = orderIds.get(o);
+            for (int[] line : plan.lines) {
+                lineRows.add(new Object[] { plan.id, itemIds.get(line[0]), line[1], line[2], line[3],
+                        line[2] > 0 ? plan.dispatchDate() : null, line[3] > 0 ? plan.returnDate() : null,
+                        ts(plan.createdAt), ts(plan.closedAt()) });
+            }
+        }
+        List<Long> lineIds = insertAll("rental_order_items",
+                "INSERT INTO rental_order_items (rental_order_id, inventory_item_id, booked_qty, dispatched_qty, "
+                        + "returned_qty, dispatch_date, return_date, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                lineRows);
+
+        // Dispatch and return vouchers; stock out with customers comes off availability
+        List<Object[]> transactionRows = new ArrayList<>();
+        List<int[]> transactionLines = new ArrayList<>(); // [transaction index, item index, qty]
+        int[] outstanding = new int[items];
+        for (int o = 0; o < orders; o++) {
+            OrderPlan plan = plans.get(o);
+            if (!plan.isDispatched()) {
+                continue;
+            }
+            transactionRows.add(new Object[] { plan.id, "DISPATCH", "D-" + plan.orderNumber, plan.dispatchDate(),
+                    ts(plan.dispatchDate().atTime(18, 0)) });
+            for (int[] line : plan.lines) {
+                transactionLines.add(new int[] { transactionRows.size() - 1, line[0], line[2] });
+                outstanding[line[0]] += line[2] - line[3];
+            }
+            if (plan.returnDate() != null) {
+                transactionRows.add(new Object[] { plan.id, "RETURN", "R-" + plan.orderNumber, plan.returnDate(),
+                        ts(plan.returnDate().atTime(18, 0)) });
+                for (int[] line : plan.lines) {
+                    if (line[3] > 0) {
+                        transactionLines.add(new int[] { transactionRows.size() - 1, line[0], line[3] });
+                    }
+                }
+            }
+        }
+        List<Long> transactionIds = insertAll("rental_order_transactions",
+                "INSERT INTO rental_order_transactions (rental_order_id, type, voucher_number, transaction_date, "
+                        + "created_at) VALUES (?, ?, ?, ?, ?)",
+                transactionRows);
+        List<Object[]> transactionItemRows = new ArrayList<>();
+        for (int[] line : transactionLines) {
+            transactionItemRows.add(new Object[] { transactionIds.get(line[0]), itemIds.get(line[1]), line[2] });
+        }
+        batch("INSERT INTO rental_order_transaction_items (transaction_id, inventory_item_id, quantity) "
+                + "VALUES (?, ?, ?)", transactionItemRows);
+
+        List<Object[]> stockRows = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            stockRows.add(new Object[] { STOCK_PER_ITEM - outstanding[i], itemIds.get(i) });
+        }
+        batch("UPDATE inventory_items SET available_stock = ? WHERE id = ?", stockRows);
+
+        // Bills with deposits and payments for completed orders
+        String billPrefix = "FS13-" + year + "-";
+        long firstBillNumber = completedOrders == 0 ? 0
+                : numberSequenceService.reserveRange(billPrefix, completedOrders, () -> {
+                    Integer maxNumber = billRepository.findMaxBillNumberForPrefix(billPrefix);
+                    return maxNumber != null ? maxNumber : 0;
+                });
+        List<Object[]> billRows = new ArrayList<>();
+        List<OrderPlan> billedPlans = new ArrayList<>();
+        List<BigDecimal[]> billPayments = new ArrayList<>();
+        for (OrderPlan plan : plans) {
+            if (!plan.status.equals("COMPLETED")) {
+                continue;
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (int[] line : plan.lines) {
+                total = total.add(rates[line[0]].multiply(BigDecimal.valueOf(line[1])));
+            }
+            BigDecimal paid = BigDecimal.ZERO;
+            BigDecimal[] amounts = new BigDecimal[plan.payments];
+            for (int p = 0; p < plan.payments; p++) {
+                amounts[p] = total.divide(BigDecimal.valueOf(plan.paymentDivisors[p]), 0, RoundingMode.DOWN);
+                paid = paid.add(amounts[p]);
+            }
+            BigDecimal net = total.subtract(paid);
+            String paymentStatus = paid.signum() == 0 ? "DUE" : net.signum() <= 0 ? "PAID" : "PARTIAL";
+            LocalDateTime billedAt = plan.billDate().atTime(10, 0).plusSeconds(billedPlans.size());
+
+            billRows.add(new Object[] { billPrefix + String.format("%03d", firstBillNumber + billedPlans.size()),
+                    customerIds.get(plan.customer), String.join(",", palNumbers.get(plan.customer)), "INVOICE",
+                    paymentStatus, total, paid, BigDecimal.ZERO, net, plan.billDate(), ts(billedAt), ts(billedAt) });
+            billedPlans.add(plan);
+            billPayments.add(amounts);
+        }
+        List<Long> billIds = insertAll("bills",
+                "INSERT INTO bills (bill_number, customer_id, pal_numbers, bill_type, payment_status, total_amount, "
+                        + "deposit, settlement_discount, net_payable, bill_date, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                billRows);
+
+        List<Object[]> billItemRows = new ArrayList<>();
+        List<Object[]> paymentRows = new ArrayList<>();
+        List<Object[]> orderBillRows = new ArrayList<>();
+        for (int b = 0; b < billedPlans.size(); b++) {
+            OrderPlan plan = billedPlans.get(b);
+            plan.billId = billIds.get(b);
+            for (int[] line : plan.lines) {
+                BigDecimal lineTotal = rates[line[0]].multiply(BigDecimal.valueOf(line[1]));
+                billItemRows.add(new Object[] { plan.billId, itemIds.get(line[0]), line[1], rates[line[0]],
+                        lineTotal });
+            }
+            BigDecimal[] amounts = billPayments.get(b);
+            for (int p = 0; p < amounts.length; p++) {
+                Timestamp paidAt = ts(plan.billDate().atTime(10, 30).plusMinutes(p));
+                paymentRows.add(new Object[] { plan.billId, amounts[p], plan.billDate(), p == 0, paidAt, paidAt });
+            }
+            orderBillRows.add(new Object[] { plan.billId, plan.id });
+        }
+        batch("INSERT INTO bill_items (bill_id, item_id, quantity, rate, total, is_lost_item, is_custom_item) "
+                + "VALUES (?, ?, ?, ?, ?, false, false)", billItemRows);
+        batch("INSERT INTO payments (bill_id, amount, payment_date, payment_method, is_deposit, created_at, "
+                + "updated_at) VALUES (?, ?, ?, 'CASH', ?, ?, ?)", paymentRows);
+        batch("UPDATE rental_orders SET bill_id = ? WHERE id = ?", orderBillRows);
+
+        // Order history: one revision for the booking and, once the order
+        // moved on, one for its current state
+        int lineIndex = 0;
+        for (OrderPlan plan : plans) {
+            Long customerId = customerIds.get(plan.customer);
+            int booking = revisions.add(plan.createdAt);
+            revisions.row(booking, orderAuditSql(), 0, plan.id, plan.orderNumber, customerId, plan.orderDate, null,
+                    plan.orderDate.plusDays(3), "BOOKED", null, ts(plan.createdAt), ts(plan.createdAt));
+            int closing = -1;
+            if (!plan.status.equals("BOOKED")) {
+                closing = revisions.add(plan.closedAt());
+                revisions.row(closing, orderAuditSql(), 1, plan.id, plan.orderNumber, customerId, plan.orderDate,
+                        plan.dispatchDate(), plan.orderDate.plusDays(3), plan.status, plan.billId,
+                        ts(plan.createdAt), ts(plan.closedAt()));
+            }
+            for (int[] line : plan.lines) {
+                Long lineId = lineIds.get(lineIndex++);
+                revisions.row(booking, orderItemAuditSql(), 0, lineId, plan.id, itemIds.get(line[0]), line[1], 0, 0,
+                        null, null, ts(plan.createdAt), ts(plan.createdAt));
+                if (closing >= 0 && line[2] > 0) {
+                    revisions.row(closing, orderItemAuditSql(), 1, lineId, plan.id, itemIds.get(line[0]), line[1],
+                            line[2], line[3], plan.dispatchDate(), line[3] > 0 ? plan.returnDate() : null,
+                            ts(plan.createdAt), ts(plan.closedAt()));
+                }
+            }
+        }
+        int revisionCount = revisions.write();
+        inventoryCatalogueCache.invalidateAll();
+        searchIndex.rebuildAfterCommit();
+        customerSuggestions.rebuildAfterCommit();
+
+        SyntheticSeasonDTO result = SyntheticSeasonDTO.builder()
+                .seed(seed)
+                .inventoryItems(items)
+                .customers(customers)
+                .palNumbers(palRows.size())
+                .orders(orders)
+                .orderItems(lineRows.size())
+                .transactions(transactionRows.size())
+                .bills(billRows.size())
+                .payments(paymentRows.size())
+                .revisions(revisionCount)
+                .elapsedMs(System.currentTimeMillis() - started)
+                .build();
+        log.info("Synthetic season generated: seed={}, customers={}, orders={}, bills={}, revisions={}, {} ms",
+                seed, customers, orders, result.getBills(), revisionCount, result.getElapsedMs());
+        return result;
+    }
+
+    private static String orderAuditSql() {
+        return "INSERT INTO rental_orders_aud (rev, revtype, id, order_number, customer_id, order_date, dispatch_date, "
+                + "expected_return_date, status, bill_id, bill_out_of_sync, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?)";
+    }
+
+    private static String orderItemAuditSql() {
+        return "INSERT INTO rental_order_items_aud (rev, revtype, id, rental_order_id, inventory_item_id, booked_qty, "
+                + "dispatched_qty, returned_qty, dispatch_date, return_date, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    private static String pickStatus(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 20) {
+            return "BOOKED";
+        } else if (roll < 40) {
+            return "DISPATCHED";
+        } else if (roll < 50) {
+            return "PARTIALLY_RETURNED";
+        } else if (roll < 60) {
+            return "RETURNED";
+        } else if (roll < 95) {
+            return "COMPLETED";
+        }
+        return "CANCELLED";
+    }
+
+    private static List<Integer> distinctItems(Random random, int items, int count) {
+        List<Integer> picked = new ArrayList<>();
+        while (picked.size() < Math.min(count, items)) {
+            int index = random.nextInt(items);
+            if (!picked.contains(index)) {
+                picked.add(index);
+            }
+        }
+        return picked;
+    }
+
+    /**
+     * Batch-insert rows into a table with an auto-increment id and return the
+     * generated ids in insert order.
+     */
+    private List<Long> insertAll(String table, String sql, List<Object[]> rows) {
+        long before = maxId(table);
+        batch(sql, rows);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id > ? ORDER BY id",
+                Long.class, before);
+        if (ids.size() != rows.size()) {
+            throw new RuntimeException("Unexpected rows in " + table + " while generating the synthetic season");
+        }
+        return ids;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(i, Math.min(i + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private static Timestamp ts(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime);
+    }
+
+    /**
+     * An order as planned, before and after its ids are known.
+     */
+    private static final class OrderPlan {
+        int customer; // Index into the generated customers
+        String status;
+        LocalDate orderDate;
+        LocalDateTime createdAt;
+        final List<int[]> lines = new ArrayList<>(); // [item index, booked, dispatched, returned]
+        int payments;
+        int[] paymentDivisors;
+        String orderNumber;
+        Long id;
+        Long billId;
+
+        boolean isDispatched() {
+            return !status.equals("BOOKED") && !status.equals("CANCELLED");
+        }
+
+        LocalDate dispatchDate() {
+            return isDispatched() ? orderDate.plusDays(1) : null;
+        }
+
+        LocalDate returnDate() {
+            return isDispatched() && !status.equals("DISPATCHED") ? orderDate.plusDays(3) : null;
+        }
+
+        LocalDate billDate() {
+            return orderDate.plusDays(4);
+        }
+
+        /** When the order reached its current status. */
+        LocalDateTime closedAt() {
+            return switch (status) {
+                case "BOOKED" -> createdAt;
+                case "CANCELLED" -> orderDate.plusDays(1).atTime(12, 0);
+                case "DISPATCHED" -> dispatchDate().atTime(18, 0);
+                case "COMPLETED" -> billDate().atTime(11, 0);
+                default -> returnDate().atTime(18, 0);
+            };
+        }
+    }
+
+    /**
+     * Revisions collected while generating. Audit rows refer to a revision by
+     * its index; revinfo rows are written in timestamp order so revision
+     * numbers follow time, then the audit rows get the generated numbers.
+     */
+    private final class Revisions {
+        private final List<LocalDateTime> timestamps = new ArrayList<>();
+        private final Map<String, List<Object[]>> rowsBySql = new HashMap<>();
+        private final Map<String, List<Integer>> revisionsBySql = new HashMap<>();
+
+        int add(LocalDateTime at) {
+            timestamps.add(at);
+            return timestamps.size() - 1;
+        }
+
+        void row(int revision, String sql, Object... values) {
+            rowsBySql.computeIfAbsent(sql, k -> new ArrayList<>()).add(values);
+            revisionsBySql.computeIfAbsent(sql, k -> new ArrayList<>()).add(revision);
+        }
+
+        int write() {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < timestamps.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.comparing(timestamps::get));
+
+            ZoneId zone = ZoneId.systemDefault();
+            List<Object[]> revinfoRows = new ArrayList<>();
+            for (int index : order) {
+                revinfoRows.add(new Object[] { timestamps.get(index).atZone(zone).toInstant().toEpochMilli(),
+                        REVISION_USERNAME });
+            }
+            List<Long> revisionIds = insertAll("revinfo",
+                    "INSERT INTO revinfo (timestamp, username) VALUES (?, ?)", revinfoRows);
+            long[] idByIndex = new long[timestamps.size()];
+            for (int i = 0; i < order.size(); i++) {
+                idByIndex[order.get(i)] = revisionIds.get(i);
+            }
+
+            for (Map.Entry<String, List<Object[]>> entry : rowsBySql.entrySet()) {
+                List<Integer> revisions = revisionsBySql.get(entry.getKey());
+                List<Object[]> rows = new ArrayList<>();
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    Object[] values = entry.getValue().get(i);
+                    Object[] row = new Object[values.length + 1];
+                    row[0] = idByIndex[revisions.get(i)];
+                    System.arraycopy(values, 0, row, 1, values.length);
+                    rows.add(row);
+                }
+                batch(entry.getKey(), rows);
+            }
+            return timestamps.size();
+        }
+    }
+}
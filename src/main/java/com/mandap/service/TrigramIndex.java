@@ -0,0 +1,189 @@
+package com.mandap.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory substring index over a few text fields per document. Every
+ * three-character sequence of a field points to the documents containing
+ * it; a query looks up its own trigrams, intersects those lists and checks
+ * the few candidates left, so it matches what {@code LIKE '%q%'} would
+ * without scanning every row. Queries shorter than three characters check
+ * every document. Text is compared lower-cased and NFC-normalized, which
+ * also makes Gujarati names written with combining signs match.
+ */
+final class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    private final Map<Long, String[]> documents = new HashMap<>();
+
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    /** Add or replace a document. Null fields are skipped. */
+    void put(Long id, Collection<String> fields) {
+        String[] normalized = fields.stream()
+                .filter(Objects::nonNull)
+                .map(TrigramIndex::normalize)
+                .toArray(String[]::new);
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            documents.put(id, normalized);
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** A document's fields as indexed (normalized), or null. */
+    List<String> fields(Long id) {
+        lock.readLock().lock();
+        try {
+            String[] fields = documents.get(id);
+            return fields != null ? List.of(fields) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the documents with a field containing the query, best match
+     * first: a field equal to the query, then starting with it, then with a
+     * word starting with it, then containing it anywhere; shorter fields
+     * and then lower ids first within each group.
+     */
+    List<Long> search(String query, LongPredicate filter) {
+        String q = normalize(query.trim());
+        if (q.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            List<Hit> hits = new ArrayList<>();
+            for (Long id : candidates(q)) {
+                if (!filter.test(id)) {
+                    continue;
+                }
+                Hit hit = match(id, documents.get(id), q);
+                if (hit != null) {
+                    hits.add(hit);
+                }
+            }
+            hits.sort(Comparator.comparingInt(Hit::rank).thenComparingInt(Hit::length).thenComparing(Hit::id));
+            List<Long> ids = new ArrayList<>(hits.size());
+            hits.forEach(hit -> ids.add(hit.id()));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<Long> candidates(String q) {
+        if (q.length() < GRAM) {
+            return documents.keySet();
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(new String[] { q })) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static Hit match(Long id, String[] fields, String q) {
+        Hit best = null;
+        for (String field : fields) {
+            int at = field.indexOf(q);
+            if (at < 0) {
+                continue;
+            }
+            int rank;
+            if (field.length() == q.length()) {
+                rank = 0;
+            } else if (at == 0) {
+                rank = 1;
+            } else if (field.contains(" " + q)) {
+                rank = 2;
+            } else {
+                rank = 3;
+            }
+            if (best == null || rank < best.rank() || rank == best.rank() && field.length() < best.length()) {
+                best = new Hit(id, rank, field.length());
+            }
+        }
+        return best;
+    }
+
+    private void unindex(Long id) {
+        String[] old = documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : grams(old)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String[] fields) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + GRAM <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    private record Hit(Long id, int rank, int length) {
+    }
+}
@@ -5,6 +5,8 @@ import com.mandap.entity.Role;
 import com.mandap.entity.User;
 import com.mandap.repository.RoleRepository;
 import com.mandap.repository.UserRepository;
+import com.mandap.security.AuthorityVersionRegistry;
+import com.mandap.security.UserDetailsCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -30,6 +32,12 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private AuthorityVersionRegistry authorityVersionRegistry;
+
     public List<UserDTO> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(this::toDTO)
@@ -96,6 +104,8 @@ public class UserService {
         }
 
         user = userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        authorityVersionRegistry.bump(user.getUsername());
         return toDTO(user);
     }
 
@@ -104,6 +114,8 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found: " + id));
         user.setActive(false);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        authorityVersionRegistry.bump(user.getUsername());
         log.info("User deactivated: id={}", id);
     }
 
@@ -0,0 +1,14 @@
+-- =============================================
+-- Mandap Billing System - Document Number Sequences
+-- Flyway Migration V11
+-- =============================================
+
+-- One row per number prefix (e.g. 'RO-2026-', 'FS13-2026-').
+-- next_value is the first number not yet handed out to any app instance.
+-- Rows are created on first use, seeded from the highest existing number.
+CREATE TABLE number_sequences (
+    sequence_key VARCHAR(40) NOT NULL,
+    next_value BIGINT NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (sequence_key)
+) ENGINE=InnoDB;
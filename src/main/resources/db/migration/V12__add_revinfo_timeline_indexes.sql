@@ -0,0 +1,10 @@
+-- =============================================
+-- Mandap Billing System - Audit Timeline Indexes
+-- Flyway Migration V12
+-- =============================================
+
+-- Timeline filtered by user, newest first (InnoDB appends the id)
+CREATE INDEX idx_revinfo_username_timestamp ON revinfo (username, timestamp);
+
+-- Timeline across all users
+CREATE INDEX idx_revinfo_timestamp ON revinfo (timestamp);
@@ -0,0 +1,21 @@
+-- =============================================
+-- Mandap Billing System - Audit Archive
+-- Flyway Migration V13
+-- =============================================
+
+-- Audit rows moved out of the _aud tables by the compaction job.
+-- payload is gzip-compressed JSON holding the revinfo rows and the _aud
+-- rows of one compaction run for one entity. It is read in place, never
+-- written back: GET /api/rental-orders/{id}/audit?includeArchived=true.
+CREATE TABLE audit_archive (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    entity_type VARCHAR(30) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    checkpoint_rev INT NOT NULL,
+    revision_count INT NOT NULL,
+    row_count INT NOT NULL,
+    archived_at DATETIME(6) NOT NULL,
+    payload LONGBLOB NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_audit_archive_entity (entity_type, entity_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,50 @@
+-- =============================================
+-- Mandap Billing System - Repository Query Indexes
+-- Flyway Migration V14
+-- =============================================
+
+-- Already covered and not repeated here: order and bill number prefix
+-- lookups (unique keys), rental_orders.bill_id and payments/bill_items
+-- bill_id (foreign key indexes). InnoDB appends the primary key to every
+-- secondary index, so "(x, created_at)" also serves "ORDER BY created_at, id".
+
+-- Rental orders by status, newest order date first; also the
+-- NOT IN ('COMPLETED', 'CANCELLED') active order list
+CREATE INDEX idx_rental_orders_status_order_date ON rental_orders (status, order_date);
+
+-- Order list keyset pages, with and without a status filter
+CREATE INDEX idx_rental_orders_status_created_at ON rental_orders (status, created_at);
+CREATE INDEX idx_rental_orders_created_at ON rental_orders (created_at);
+
+-- Active / unreturned orders of a customer (replaces the customer_id
+-- foreign key index)
+CREATE INDEX idx_rental_orders_customer_status ON rental_orders (customer_id, status, order_date);
+
+-- Inventory totals grouped by item over active orders. Both covering:
+-- scanning by item for the per-item lookups, by order when the active
+-- orders are the driving table
+CREATE INDEX idx_rental_order_items_item_totals
+    ON rental_order_items (inventory_item_id, rental_order_id, booked_qty, dispatched_qty, returned_qty);
+CREATE INDEX idx_rental_order_items_order_totals
+    ON rental_order_items (rental_order_id, inventory_item_id, booked_qty, dispatched_qty, returned_qty);
+
+-- Bills by date range and the year filter. Range pages are ordered by
+-- (bill_date, id), which InnoDB's appended id already covers
+CREATE INDEX idx_bills_bill_date ON bills (bill_date);
+
+-- Bill list keyset pages, with and without a payment status filter
+CREATE INDEX idx_bills_payment_status_created_at ON bills (payment_status, created_at);
+CREATE INDEX idx_bills_created_at ON bills (created_at);
+
+-- Pending bills of a customer (replaces the customer_id foreign key index)
+CREATE INDEX idx_bills_customer_payment_status ON bills (customer_id, payment_status);
+
+-- Dispatch / return vouchers of an order, newest first. The rental_order_id
+-- foreign key index finds them but leaves the date sort; voucher items are
+-- already served by the transaction_id foreign key index
+CREATE INDEX idx_rental_order_transactions_order_date
+    ON rental_order_transactions (rental_order_id, transaction_date);
+
+-- Envers loads an order revision's items by rental_order_id and the latest
+-- rev at or before it; without this every audit page scanned the table
+CREATE INDEX idx_rental_order_items_aud_order_rev ON rental_order_items_aud (rental_order_id, rev);
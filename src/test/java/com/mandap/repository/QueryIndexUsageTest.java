@@ -0,0 +1,359 @@
+package com.mandap.repository;
+
+import com.mandap.entity.Bill;
+import com.mandap.entity.RentalOrder;
+import com.mandap.service.RentalOrderService;
+import com.mandap.service.SyntheticSeasonGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Every V14 index must still serve the repository query it was added for.
+ * The SQL Hibernate issues for each query is captured at the JDBC layer with
+ * its bound values, which are inlined the way MySQL Connector/J sends them by
+ * default, and run through EXPLAIN on a synthetic season. H2 plans are not
+ * MySQL plans; this catches indexes that are dropped, renamed or no longer
+ * match the query shape.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "NON_KEYWORDS=YEAR,VALUE,USER;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryIndexUsageTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 51);
+
+    @Autowired
+    private RentalOrderRepository rentalOrderRepository;
+
+    @Autowired
+    private RentalOrderItemRepository rentalOrderItemRepository;
+
+    @Autowired
+    private RentalOrderTransactionRepository rentalOrderTransactionRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private RentalOrderService rentalOrderService;
+
+    @Autowired
+    private SyntheticSeasonGenerator syntheticSeasonGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private StatementRecorder recorder;
+
+    @BeforeAll
+    void loadSeason() {
+        // The schema here is generated from the entity mappings, without the
+        // migration's query indexes
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V14__add_query_indexes.sql"))
+                .execute(dataSource);
+        syntheticSeasonGenerator.generate(42, 500, 1500, 40);
+        // MySQL drops the index it made for a foreign key once another index
+        // starts with the key's column, which V14 relies on. H2 keeps it, so
+        // drop those keys, and their indexes with them; nothing below writes
+        for (Map<String, Object> key : jdbcTemplate.queryForList("SELECT k.table_name, k.constraint_name "
+                + "FROM information_schema.referential_constraints r "
+                + "JOIN information_schema.key_column_usage k ON k.constraint_name = r.constraint_name "
+                + "WHERE EXISTS (SELECT 1 FROM information_schema.index_columns i "
+                + "WHERE i.table_name = k.table_name AND i.column_name = k.column_name "
+                + "AND i.ordinal_position = 1 AND i.index_name LIKE 'idx\\_%')")) {
+            jdbcTemplate.execute("ALTER TABLE " + key.get("table_name") + " DROP CONSTRAINT "
+                    + key.get("constraint_name"));
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void activeOrderList() {
+        assertIndexUsed("idx_rental_orders_status_order_date", "rental_orders",
+                () -> rentalOrderRepository.findActiveOrders());
+    }
+
+    // H2 does not count a sort an index would save, so pages are checked past a
+    // cursor, where the index also bounds the rows read
+
+    @Test
+    void orderPagesByStatus() {
+        Map<String, Object> cursor = jdbcTemplate.queryForMap("SELECT created_at, id FROM rental_orders "
+                + "WHERE status = 'BOOKED' ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET 50");
+        assertIndexUsed("idx_rental_orders_status_created_at", "rental_orders",
+                () -> rentalOrderRepository.findPageIdsNewestFirst(RentalOrder.RentalOrderStatus.BOOKED, null,
+                        null, createdAt(cursor), (Long) cursor.get("id"), PAGE));
+    }
+
+    @Test
+    void orderPages() {
+        Map<String, Object> cursor = jdbcTemplate.queryForMap(
+                "SELECT created_at, id FROM rental_orders ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET 700");
+        assertIndexUsed("idx_rental_orders_created_at", "rental_orders",
+                () -> rentalOrderRepository.findPageIdsNewestFirst(null, null, null, createdAt(cursor),
+                        (Long) cursor.get("id"), PAGE));
+    }
+
+    @Test
+    void unreturnedOrdersOfACustomer() {
+        Long customerId = jdbcTemplate.queryForObject(
+                "SELECT customer_id FROM rental_orders WHERE status = 'DISPATCHED' LIMIT 1", Long.class);
+        assertIndexUsed("idx_rental_orders_customer_status", "rental_orders",
+                () -> rentalOrderRepository.findUnreturnedOrdersByCustomer(customerId));
+    }
+
+    @Test
+    void inventoryTotalsOfSomeItems() {
+        List<Long> itemIds = jdbcTemplate.queryForList("SELECT id FROM inventory_items ORDER BY id LIMIT 3",
+                Long.class);
+        assertIndexUsed("idx_rental_order_items_item_totals", "rental_order_items",
+                () -> rentalOrderItemRepository.getInventoryTotals(itemIds));
+    }
+
+    @Test
+    void inventoryTotalsOfAllItems() {
+        assertIndexUsed("idx_rental_order_items_order_totals", "rental_order_items",
+                () -> rentalOrderItemRepository.getInventoryTotals());
+    }
+
+    @Test
+    void billPagesInADateRange() {
+        LocalDate from = jdbcTemplate.queryForObject("SELECT MIN(bill_date) FROM bills", LocalDate.class);
+        assertIndexUsed("idx_bills_bill_date", "bills",
+                () -> billRepository.findRangePageIdsNewestFirst(from, from.plusMonths(1), null, null, PAGE));
+    }
+
+    @Test
+    void billPagesByPaymentStatus() {
+        Map<String, Object> cursor = jdbcTemplate.queryForMap("SELECT created_at, id FROM bills "
+                + "WHERE payment_status = 'DUE' ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET 50");
+        assertIndexUsed("idx_bills_payment_status_created_at", "bills",
+                () -> billRepository.findPageIdsNewestFirst(Bill.PaymentStatus.DUE, null, null, createdAt(cursor),
+                        (Long) cursor.get("id"), PAGE));
+    }
+
+    @Test
+    void billPages() {
+        Map<String, Object> cursor = jdbcTemplate.queryForMap(
+                "SELECT created_at, id FROM bills ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET 300");
+        assertIndexUsed("idx_bills_created_at", "bills",
+                () -> billRepository.findPageIdsNewestFirst(null, null, null, createdAt(cursor),
+                        (Long) cursor.get("id"), PAGE));
+    }
+
+    @Test
+    void pendingBillsOfACustomer() {
+        Long customerId = jdbcTemplate.queryForObject("SELECT customer_id FROM bills LIMIT 1", Long.class);
+        assertIndexUsed("idx_bills_customer_payment_status", "bills",
+                () -> billRepository.hasPendingBills(customerId));
+    }
+
+    @Test
+    void vouchersOfSomeOrders() {
+        List<Long> orderIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT rental_order_id FROM rental_order_transactions ORDER BY rental_order_id LIMIT 3",
+                Long.class);
+        assertIndexUsed("idx_rental_order_transactions_order_date", "rental_order_transactions",
+                () -> rentalOrderTransactionRepository.findByRentalOrderIdsWithItems(orderIds));
+    }
+
+    @Test
+    void orderAuditHistory() {
+        Long orderId = jdbcTemplate.queryForObject(
+                "SELECT id FROM rental_orders_aud GROUP BY id ORDER BY COUNT(*) DESC, id LIMIT 1", Long.class);
+        assertIndexUsed("idx_rental_order_items_aud_order_rev", "rental_order_items_aud",
+                () -> rentalOrderService.getRentalOrderAuditHistory(orderId, 0, 10, true, false));
+    }
+
+    private static LocalDateTime createdAt(Map<String, Object> row) {
+        return ((Timestamp) row.get("created_at")).toLocalDateTime();
+    }
+
+    /**
+     * Run a call, then EXPLAIN each statement it issued against the table;
+     * at least one must use the index.
+     */
+    private void assertIndexUsed(String index, String table, Runnable call) {
+        List<StatementRecorder.Executed> executed = recorder.record(call);
+        List<String> plans = new ArrayList<>();
+        for (StatementRecorder.Executed statement : executed) {
+            if (!statement.sql().toLowerCase().contains(" from " + table + " ")) {
+                continue;
+            }
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + statement.withValues(), String.class);
+            if (plan.contains("." + index + ":")) {
+                return;
+            }
+            plans.add(plan);
+        }
+        assertFalse(plans.isEmpty(), "No statement against " + table + " was issued");
+        fail(index + " not used by:\n" + String.join("\n\n", plans));
+    }
+
+    @TestConfiguration
+    static class RecorderConfig {
+
+        @Bean
+        StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? StatementRecorder.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Records the prepared statements executed on any connection, with their
+     * bound values, while a call runs.
+     */
+    static class StatementRecorder {
+
+        private static final List<Executed> executed = new CopyOnWriteArrayList<>();
+
+        private static volatile boolean recording;
+
+        record Executed(String sql, Map<Integer, Object> values) {
+
+            /** The SQL with each placeholder replaced by its value as a literal. */
+            String withValues() {
+                StringBuilder sql = new StringBuilder();
+                boolean quoted = false;
+                int parameter = 0;
+                for (char c : this.sql.toCharArray()) {
+                    if (c == '\'') {
+                        quoted = !quoted;
+                    }
+                    if (c == '?' && !quoted) {
+                        sql.append(literal(values.get(++parameter)));
+                    } else {
+                        sql.append(c);
+                    }
+                }
+                return sql.toString();
+            }
+
+            private static String literal(Object value) {
+                if (value == null) {
+                    return "NULL";
+                }
+                if (value instanceof Number || value instanceof Boolean) {
+                    return value.toString();
+                }
+                if (value instanceof Timestamp timestamp) {
+                    return literal(timestamp.toLocalDateTime());
+                }
+                if (value instanceof java.sql.Date date) {
+                    return literal(date.toLocalDate());
+                }
+                if (value instanceof LocalDateTime dateTime) {
+                    return "TIMESTAMP '" + dateTime.toString().replace('T', ' ') + "'";
+                }
+                if (value instanceof LocalDate date) {
+                    return "DATE '" + date + "'";
+                }
+                if (value instanceof String || value instanceof Temporal) {
+                    return "'" + value.toString().replace("'", "''") + "'";
+                }
+                throw new IllegalArgumentException("No literal for " + value.getClass());
+            }
+        }
+
+        List<Executed> record(Runnable call) {
+            executed.clear();
+            recording = true;
+            try {
+                call.run();
+            } finally {
+                recording = false;
+            }
+            return new ArrayList<>(executed);
+        }
+
+        static DataSource wrap(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, result, args) ->
+                    result instanceof Connection connection ? wrap(connection) : result);
+        }
+
+        private static Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (method, result, args) ->
+                    result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                            ? wrap(statement, (String) args[0])
+                            : result);
+        }
+
+        private static PreparedStatement wrap(PreparedStatement statement, String sql) {
+            Map<Integer, Object> values = new TreeMap<>();
+            return proxy(PreparedStatement.class, statement, (method, result, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    values.put(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    values.clear();
+                } else if (recording && name.startsWith("execute") && (args == null || args.length == 0)) {
+                    executed.add(new Executed(sql, new TreeMap<>(values)));
+                }
+                return result;
+            });
+        }
+
+        private interface AfterCall {
+            Object apply(Method method, Object result, Object[] args);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, AfterCall after) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                try {
+                    return after.apply(method, method.invoke(target, args), args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+        }
+    }
+}
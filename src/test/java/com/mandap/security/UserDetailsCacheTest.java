@@ -0,0 +1,65 @@
+package com.mandap.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * A user change evicts the cached principal; a load that was already
+ * running with the old authorities must not put them back.
+ */
+class UserDetailsCacheTest {
+
+    private UserDetailsCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserDetailsCache();
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+    }
+
+    @Test
+    void cachesLoadedUser() {
+        UserDetails first = cache.get("asha", this::load);
+        assertSame(first, cache.get("asha", this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadOverlappingAnEvictionIsNotKept() {
+        // The user is demoted while their old authorities are being loaded
+        cache.get("asha", username -> {
+            UserDetails stale = load(username);
+            cache.evict(username);
+            return stale;
+        });
+        cache.get("asha", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadOverlappingARoleChangeIsNotKept() {
+        cache.get("asha", username -> {
+            UserDetails stale = load(username);
+            cache.evictAll();
+            return stale;
+        });
+        cache.get("asha", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private UserDetails load(String username) {
+        loads.incrementAndGet();
+        return User.withUsername(username).password("x").authorities("ROLE_STAFF").build();
+    }
+}
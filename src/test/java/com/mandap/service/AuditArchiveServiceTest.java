@@ -0,0 +1,171 @@
+package com.mandap.service;
+
+import com.mandap.dto.PageDTO;
+import com.mandap.dto.RentalOrderAuditDTO;
+import com.mandap.dto.RentalOrderDTO;
+import com.mandap.dto.RentalOrderItemDTO;
+import com.mandap.dto.RentalOrderTransactionDTO;
+import com.mandap.entity.Customer;
+import com.mandap.entity.InventoryItem;
+import com.mandap.repository.CustomerRepository;
+import com.mandap.repository.InventoryItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compacting an order's audit history moves old revisions into the archive;
+ * reading the history with the archive included must give back exactly the
+ * revisions and states seen before compaction.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class AuditArchiveServiceTest {
+
+    @Autowired
+    private RentalOrderService rentalOrderService;
+
+    @Autowired
+    private AuditArchiveService auditArchiveService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // The archive table has no entity, so the generated schema lacks it
+    @BeforeEach
+    void createArchiveTable() {
+        Integer tables = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables "
+                + "WHERE table_name = 'audit_archive'", Integer.class);
+        if (tables == 0) {
+            new ResourceDatabasePopulator(new ClassPathResource("db/migration/V13__add_audit_archive.sql"))
+                    .execute(dataSource);
+        }
+    }
+
+    @Test
+    void archivedHistoryReadsBackAsBeforeCompaction() {
+        InventoryItem chairs = newItem("Archive Chair");
+        InventoryItem tables = newItem("Archive Table");
+        InventoryItem fans = newItem("Archive Fan");
+        Customer customer = customerRepository.save(Customer.builder()
+                .name("Archive Test")
+                .mobile("7000000001")
+                .build());
+
+        // Booking, then a line added and one removed (a deleted item row),
+        // a dispatch, a return and a remarks-only change
+        RentalOrderDTO order = rentalOrderService.createBooking(RentalOrderDTO.builder()
+                .customerId(customer.getId())
+                .items(List.of(line(chairs, 10), line(tables, 4)))
+                .build());
+        Long orderId = order.getId();
+        rentalOrderService.updateOrder(orderId, RentalOrderDTO.builder()
+                .items(List.of(line(chairs, 10), line(tables, 4), line(fans, 2)))
+                .build());
+        rentalOrderService.updateOrder(orderId, RentalOrderDTO.builder()
+                .items(List.of(line(chairs, 12), line(fans, 2)))
+                .build());
+        rentalOrderService.dispatchItems(orderId, RentalOrderTransactionDTO.builder()
+                .items(List.of(RentalOrderItemDTO.builder().inventoryItemId(chairs.getId()).dispatchedQty(12).build(),
+                        RentalOrderItemDTO.builder().inventoryItemId(fans.getId()).dispatchedQty(2).build()))
+                .build());
+        rentalOrderService.receiveItems(orderId, RentalOrderTransactionDTO.builder()
+                .items(List.of(RentalOrderItemDTO.builder().inventoryItemId(chairs.getId()).returnedQty(5).build()))
+                .build());
+        rentalOrderService.updateOrder(orderId, RentalOrderDTO.builder()
+                .items(List.of(line(chairs, 12), line(fans, 2)))
+                .remarks("Second half next week")
+                .build());
+
+        // First three revisions 200 days old, the next two 100 days old, the
+        // last one recent, so two compaction runs each archive a part
+        List<Integer> revisions = jdbcTemplate.queryForList(
+                "SELECT rev FROM rental_orders_aud WHERE id = ? ORDER BY rev", Integer.class, orderId);
+        assertEquals(6, revisions.size());
+        backdate(revisions.subList(0, 3), 200);
+        backdate(revisions.subList(3, 5), 100);
+
+        List<RentalOrderAuditDTO> before = history(orderId, false);
+        assertEquals(6, before.size());
+
+        assertEquals(1, auditArchiveService.compactRentalOrders(150).getOrdersCompacted());
+        assertEquals(1, auditArchiveService.compactRentalOrders(60).getOrdersCompacted());
+        assertEquals(0, auditArchiveService.compactRentalOrders(60).getOrdersCompacted());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_archive WHERE entity_id = ?", Integer.class, orderId));
+        assertTrue(history(orderId, false).size() < before.size());
+
+        assertEquals(normalized(before), normalized(history(orderId, true)));
+
+        // Pages that cross from live into archived revisions
+        List<RentalOrderAuditDTO> paged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            PageDTO<RentalOrderAuditDTO> result = rentalOrderService.getRentalOrderAuditHistory(orderId, page, 2,
+                    true, true);
+            assertEquals(6, result.getTotalElements());
+            assertEquals(page < 2, result.isHasMore());
+            paged.addAll(result.getItems());
+        }
+        assertEquals(normalized(before), normalized(paged));
+    }
+
+    private List<RentalOrderAuditDTO> history(Long orderId, boolean includeArchived) {
+        return rentalOrderService.getRentalOrderAuditHistory(orderId, 0, 100, true, includeArchived).getItems();
+    }
+
+    // Line order within an order state is not significant
+    private static List<RentalOrderAuditDTO> normalized(List<RentalOrderAuditDTO> history) {
+        for (RentalOrderAuditDTO entry : history) {
+            RentalOrderDTO state = (RentalOrderDTO) entry.getEntity();
+            state.getItems().sort(Comparator.comparing(RentalOrderItemDTO::getId));
+        }
+        return history;
+    }
+
+    private void backdate(List<Integer> revisions, int days) {
+        long timestamp = LocalDate.now().minusDays(days).atTime(10, 0)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (int i = 0; i < revisions.size(); i++) {
+            jdbcTemplate.update("UPDATE revinfo SET timestamp = ? WHERE id = ?", timestamp + i, revisions.get(i));
+        }
+    }
+
+    private static RentalOrderItemDTO line(InventoryItem item, int bookedQty) {
+        return RentalOrderItemDTO.builder().inventoryItemId(item.getId()).bookedQty(bookedQty).build();
+    }
+
+    private InventoryItem newItem(String name) {
+        return inventoryItemRepository.save(InventoryItem.builder()
+                .nameGujarati(name)
+                .nameEnglish(name)
+                .defaultRate(BigDecimal.TEN)
+                .totalStock(50)
+                .availableStock(50)
+                .build());
+    }
+}
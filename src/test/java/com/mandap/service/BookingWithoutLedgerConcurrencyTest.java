@@ -0,0 +1,109 @@
+package com.mandap.service;
+
+import com.mandap.dto.RentalOrderDTO;
+import com.mandap.dto.RentalOrderItemDTO;
+import com.mandap.entity.Customer;
+import com.mandap.entity.InventoryItem;
+import com.mandap.repository.CustomerRepository;
+import com.mandap.repository.InventoryItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * With the ATP ledger off, as for several app instances, parallel bookings
+ * are checked against the database totals and must never overbook.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "app.inventory.atp-ledger.enabled=false")
+@ActiveProfiles("test")
+class BookingWithoutLedgerConcurrencyTest {
+
+    // Below the connection pool size, so no booking waits for a connection
+    private static final int BOOKINGS = 8;
+    private static final int QTY = 4;
+
+    @Autowired
+    private RentalOrderService rentalOrderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelBookingsBeyondStockNeverOverbook() throws Exception {
+        // Room for half of the bookings
+        int totalStock = BOOKINGS / 2 * QTY;
+        InventoryItem item = inventoryItemRepository.save(InventoryItem.builder()
+                .nameGujarati("મંડપ")
+                .nameEnglish("Ledgerless Tent")
+                .defaultRate(BigDecimal.TEN)
+                .totalStock(totalStock)
+                .availableStock(totalStock)
+                .build());
+        List<Long> customerIds = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            customerIds.add(customerRepository.save(Customer.builder()
+                    .name("Ledgerless " + i)
+                    .mobile(String.format("6000000%03d", i))
+                    .build()).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(BOOKINGS);
+        CountDownLatch start = new CountDownLatch(1);
+        int booked = 0;
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Long customerId : customerIds) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        rentalOrderService.createBooking(RentalOrderDTO.builder()
+                                .customerId(customerId)
+                                .items(List.of(RentalOrderItemDTO.builder()
+                                        .inventoryItemId(item.getId())
+                                        .bookedQty(QTY)
+                                        .build()))
+                                .build());
+                        return true;
+                    } catch (RuntimeException e) {
+                        assertTrue(e.getMessage().startsWith("Insufficient stock"), e.getMessage());
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                if (future.get(60, TimeUnit.SECONDS)) {
+                    booked++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(BOOKINGS / 2, booked);
+        assertEquals(totalStock, jdbcTemplate.queryForObject(
+                "SELECT SUM(booked_qty) FROM rental_order_items WHERE inventory_item_id = ?", Integer.class,
+                item.getId()));
+    }
+}
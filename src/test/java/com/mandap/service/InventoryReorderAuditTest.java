@@ -0,0 +1,86 @@
+package com.mandap.service;
+
+import com.mandap.entity.InventoryItem;
+import com.mandap.repository.InventoryItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.history.Revision;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The set-based reorder writes its audit rows in SQL; they must cover every
+ * audited column and land in a single Envers revision.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class InventoryReorderAuditTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void auditColumnsMatchTheEntity() {
+        // The schema here is generated from the entity mappings
+        Set<String> expected = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT column_name FROM information_schema.columns WHERE table_name = 'inventory_items_aud'",
+                String.class));
+        expected.remove("rev");
+        expected.remove("revtype");
+
+        Set<String> shared = new HashSet<>(Arrays.asList(InventoryItemRepository.AUDIT_COLUMNS.split(",\\s*")));
+        assertEquals(expected, shared);
+    }
+
+    @Test
+    void reorderRecordsChangedItemsInOneRevision() {
+        InventoryItem first = newItem("Reorder A", 0);
+        InventoryItem second = newItem("Reorder B", 1);
+        InventoryItem third = newItem("Reorder C", 2);
+
+        inventoryService.reorderItems(List.of(third.getId(), second.getId(), first.getId()));
+
+        Revision<Integer, InventoryItem> firstRevision = lastRevision(first);
+        Revision<Integer, InventoryItem> secondRevision = lastRevision(second);
+        Revision<Integer, InventoryItem> thirdRevision = lastRevision(third);
+
+        assertEquals(firstRevision.getRequiredRevisionNumber(), thirdRevision.getRequiredRevisionNumber());
+        assertEquals(2, firstRevision.getEntity().getDisplayOrder());
+        assertEquals(0, thirdRevision.getEntity().getDisplayOrder());
+        assertEquals("Reorder C", thirdRevision.getEntity().getNameEnglish());
+
+        // Unchanged positions are not audited
+        assertTrue(secondRevision.getRequiredRevisionNumber() < firstRevision.getRequiredRevisionNumber());
+    }
+
+    private Revision<Integer, InventoryItem> lastRevision(InventoryItem item) {
+        return inventoryItemRepository.findLastChangeRevision(item.getId()).orElseThrow();
+    }
+
+    private InventoryItem newItem(String name, int displayOrder) {
+        return inventoryItemRepository.save(InventoryItem.builder()
+                .nameGujarati(name)
+                .nameEnglish(name)
+                .defaultRate(BigDecimal.TEN)
+                .displayOrder(displayOrder)
+                .totalStock(10)
+                .availableStock(10)
+                .build());
+    }
+}
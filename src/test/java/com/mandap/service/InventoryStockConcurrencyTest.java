@@ -0,0 +1,234 @@
+package com.mandap.service;
+
+import com.mandap.dto.BulkVoucherDTO;
+import com.mandap.dto.RentalOrderDTO;
+import com.mandap.dto.RentalOrderItemDTO;
+import com.mandap.dto.RentalOrderTransactionDTO;
+import com.mandap.entity.Customer;
+import com.mandap.entity.InventoryItem;
+import com.mandap.repository.CustomerRepository;
+import com.mandap.repository.InventoryItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parallel dispatches and returns against one inventory item must leave
+ * available_stock exactly at total stock minus what is still out, with no
+ * lost updates and never below zero.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class InventoryStockConcurrencyTest {
+
+    private static final int ORDERS = 12;
+    private static final int ROUNDS = 5;
+    private static final int QTY = 4;
+
+    @Autowired
+    private RentalOrderService rentalOrderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final AtomicInteger run = new AtomicInteger();
+
+    private int runId;
+
+    @BeforeEach
+    void setUp() {
+        runId = run.incrementAndGet();
+    }
+
+    @Test
+    void parallelDispatchAndReturnKeepAvailableStockExact() throws Exception {
+        int totalStock = ORDERS * ROUNDS * QTY;
+        InventoryItem item = newItem(totalStock);
+        List<Long> orderIds = bookOrders(item, ROUNDS * QTY);
+
+        // Each order dispatches QTY per round and returns QTY every other
+        // round; orders run in parallel so every movement contends on the item
+        int returnsPerOrder = runInParallel(orderIds, orderId -> {
+            int returned = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                rentalOrderService.dispatchItems(orderId, dispatch(item, QTY));
+                if (round % 2 == 1) {
+                    rentalOrderService.receiveItems(orderId, receive(item, QTY));
+                    returned++;
+                }
+            }
+            return returned;
+        }).get(0);
+
+        int stillOut = ORDERS * (ROUNDS - returnsPerOrder) * QTY;
+        assertEquals(totalStock - stillOut, availableStock(item));
+        assertEquals(stillOut, outstandingFromVouchers(item));
+    }
+
+    @Test
+    void parallelDispatchBeyondStockNeverGoesNegative() throws Exception {
+        // Book within total stock, then leave only two thirds of it on the
+        // shelf so every order wants more than its share and some dispatches fail
+        InventoryItem item = newItem(ORDERS * QTY * 3);
+        List<Long> orderIds = bookOrders(item, QTY * 3);
+        int shelfStock = ORDERS * QTY * 2;
+        jdbcTemplate.update("UPDATE inventory_items SET available_stock = ? WHERE id = ?", shelfStock, item.getId());
+
+        List<Integer> dispatched = runInParallel(orderIds, orderId -> {
+            int qty = 0;
+            for (int round = 0; round < 3; round++) {
+                try {
+                    rentalOrderService.dispatchItems(orderId, dispatch(item, QTY));
+                    qty += QTY;
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().startsWith("Insufficient available stock"), e.getMessage());
+                }
+            }
+            return qty;
+        });
+
+        int totalDispatched = dispatched.stream().mapToInt(Integer::intValue).sum();
+        assertEquals(shelfStock, totalDispatched);
+        assertEquals(0, availableStock(item));
+        assertEquals(totalDispatched, outstandingFromVouchers(item));
+    }
+
+    @Test
+    void bulkDispatchBeyondStockRollsBackEveryItem() {
+        InventoryItem plenty = newItem(QTY * 2);
+        InventoryItem scarce = newItem(QTY * 2);
+        Customer customer = customerRepository.save(Customer.builder()
+                .name("Bulk Test " + runId)
+                .mobile(String.format("8%02d%07d", runId, 0))
+                .build());
+        RentalOrderDTO order = rentalOrderService.createBooking(RentalOrderDTO.builder()
+                .customerId(customer.getId())
+                .items(List.of(
+                        RentalOrderItemDTO.builder().inventoryItemId(plenty.getId()).bookedQty(QTY).build(),
+                        RentalOrderItemDTO.builder().inventoryItemId(scarce.getId()).bookedQty(QTY).build()))
+                .build());
+        jdbcTemplate.update("UPDATE inventory_items SET available_stock = ? WHERE id = ?", QTY - 1, scarce.getId());
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> rentalOrderService.applyBulkVoucher(
+                BulkVoucherDTO.builder()
+                        .type("DISPATCH")
+                        .orders(List.of(RentalOrderTransactionDTO.builder()
+                                .rentalOrderId(order.getId())
+                                .items(List.of(
+                                        RentalOrderItemDTO.builder().inventoryItemId(plenty.getId())
+                                                .dispatchedQty(QTY).build(),
+                                        RentalOrderItemDTO.builder().inventoryItemId(scarce.getId())
+                                                .dispatchedQty(QTY).build()))
+                                .build()))
+                        .build()));
+
+        assertEquals("Insufficient available stock for: " + scarce.getNameEnglish(), error.getMessage());
+        assertEquals(QTY * 2, availableStock(plenty));
+        assertEquals(QTY - 1, availableStock(scarce));
+        assertEquals(0, outstandingFromVouchers(plenty));
+    }
+
+    private interface OrderWork {
+        int run(Long orderId);
+    }
+
+    private List<Integer> runInParallel(List<Long> orderIds, OrderWork work) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(orderIds.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return work.run(orderId);
+                }));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private InventoryItem newItem(int stock) {
+        return inventoryItemRepository.save(InventoryItem.builder()
+                .nameGujarati("ખુરશી " + runId)
+                .nameEnglish("Chair " + runId)
+                .defaultRate(BigDecimal.TEN)
+                .category(InventoryItem.ItemCategory.FURNITURE)
+                .totalStock(stock)
+                .availableStock(stock)
+                .build());
+    }
+
+    private List<Long> bookOrders(InventoryItem item, int bookedQty) {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Customer customer = customerRepository.save(Customer.builder()
+                    .name("Stock Test " + runId + "-" + i)
+                    .mobile(String.format("9%02d%07d", runId, i))
+                    .build());
+            RentalOrderDTO order = rentalOrderService.createBooking(RentalOrderDTO.builder()
+                    .customerId(customer.getId())
+                    .items(List.of(RentalOrderItemDTO.builder()
+                            .inventoryItemId(item.getId())
+                            .bookedQty(bookedQty)
+                            .build()))
+                    .build());
+            orderIds.add(order.getId());
+        }
+        return orderIds;
+    }
+
+    private static RentalOrderTransactionDTO dispatch(InventoryItem item, int qty) {
+        return RentalOrderTransactionDTO.builder()
+                .items(List.of(RentalOrderItemDTO.builder().inventoryItemId(item.getId()).dispatchedQty(qty).build()))
+                .build();
+    }
+
+    private static RentalOrderTransactionDTO receive(InventoryItem item, int qty) {
+        return RentalOrderTransactionDTO.builder()
+                .items(List.of(RentalOrderItemDTO.builder().inventoryItemId(item.getId()).returnedQty(qty).build()))
+                .build();
+    }
+
+    private int availableStock(InventoryItem item) {
+        return jdbcTemplate.queryForObject("SELECT available_stock FROM inventory_items WHERE id = ?",
+                Integer.class, item.getId());
+    }
+
+    // Dispatched minus returned according to the voucher lines
+    private int outstandingFromVouchers(InventoryItem item) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(CASE t.type WHEN 'DISPATCH' THEN ti.quantity "
+                + "ELSE -ti.quantity END), 0) FROM rental_order_transaction_items ti "
+                + "JOIN rental_order_transactions t ON t.id = ti.transaction_id WHERE ti.inventory_item_id = ?",
+                Integer.class, item.getId());
+    }
+}
@@ -0,0 +1,93 @@
+package com.mandap.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixTrieTest {
+
+    @Test
+    void addSplitsAnEdgeWhereKeysDiverge() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("ramesh", 1L);
+        assertEquals(1, trie.nodeCount());
+
+        trie.add("rajesh", 2L);
+        // "ra" with children "mesh" and "jesh"
+        assertEquals(3, trie.nodeCount());
+        assertEquals(2, trie.size());
+        assertEquals(List.of(1L, 2L), trie.find("ra", 10));
+        assertEquals(List.of(1L), trie.find("ram", 10));
+        assertEquals(List.of(2L), trie.find("rajesh", 10));
+    }
+
+    @Test
+    void removingTheLastIdOfASplitKeyMergesTheEdgeBack() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("ramesh", 1L);
+        trie.add("rajesh", 2L);
+        trie.add("rajesh", 3L);
+
+        trie.remove("rajesh", 2L);
+        assertEquals(3, trie.nodeCount());
+        assertEquals(List.of(3L), trie.find("raj", 10));
+
+        trie.remove("rajesh", 3L);
+        assertEquals(1, trie.nodeCount());
+        assertEquals(1, trie.size());
+        assertEquals(List.of(1L), trie.find("ra", 10));
+        assertEquals(List.of(), trie.find("raj", 10));
+
+        // The merged edge splits again
+        trie.add("rajesh", 2L);
+        assertEquals(List.of(1L, 2L), trie.find("r", 10));
+    }
+
+    @Test
+    void removingAKeyThatPrefixesAnotherKeepsTheLongerKey() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("ram", 1L);
+        trie.add("ramesh", 2L);
+        assertEquals(2, trie.nodeCount());
+
+        trie.remove("ram", 1L);
+        assertEquals(1, trie.nodeCount());
+        assertEquals(1, trie.size());
+        assertEquals(List.of(2L), trie.find("ram", 10));
+        assertEquals(List.of(2L), trie.find("ramesh", 10));
+
+        // Neither a key partway along an edge nor a missing id changes anything
+        trie.remove("rame", 2L);
+        trie.remove("ramesh", 9L);
+        assertEquals(List.of(2L), trie.find("r", 10));
+    }
+
+    @Test
+    void findWithAPrefixEndingInsideAnEdge() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("mahesh", 1L);
+        trie.add("mahendra", 2L);
+
+        // "mahe" ends inside neither edge; "mahes" ends inside "sh"
+        assertEquals(List.of(1L, 2L), trie.find("mahe", 10));
+        assertEquals(List.of(1L), trie.find("mahes", 10));
+        assertEquals(List.of(), trie.find("mahex", 10));
+        assertEquals(List.of(), trie.find("maheshwari", 10));
+    }
+
+    @Test
+    void shorterKeysFirstThenLowerIdsAcrossSiblings() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("ad", 9L);
+        trie.add("ab", 5L);
+        trie.add("ac", 3L);
+        trie.add("ac", 8L);
+        trie.add("a", 7L);
+        trie.add("abc", 1L);
+
+        assertEquals(List.of(7L, 3L, 5L, 8L, 9L, 1L), trie.find("a", 10));
+        assertEquals(List.of(7L, 3L, 5L), trie.find("a", 3));
+    }
+}